@@ -0,0 +1,37 @@
+package benchmarks;
+
+/* The positions the benchmarks are run on, as FEN (see FenParser). Alongside the starting position there are a few
+ * well known middlegames, which are busy positions with plenty of moves and captures, and a few endgames, where there
+ * are far fewer pieces but the search goes deeper. The names are used as the @Param values of the benchmarks. */
+public final class BenchmarkPositions {
+
+	public static final String START = "start";
+	public static final String KIWIPETE = "kiwipete";
+	public static final String MIDDLEGAME = "middlegame";
+	public static final String PROMOTIONS = "promotions";
+	public static final String ROOK_ENDGAME = "rookEndgame";
+	public static final String PAWN_ENDGAME = "pawnEndgame";
+
+	private BenchmarkPositions() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static String getFen(final String name) {
+		switch(name) {
+			case START:
+				return "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+			case KIWIPETE:
+				return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+			case MIDDLEGAME:
+				return "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+			case PROMOTIONS:
+				return "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+			case ROOK_ENDGAME:
+				return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+			case PAWN_ENDGAME:
+				return "8/8/4k3/3p1p2/3P1P2/4K3/8/8 w - - 0 1";
+			default:
+				throw new IllegalArgumentException("Unknown benchmark position " + name);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/* Runs the benchmarks with the gc profiler attached, so alongside the throughput of each benchmark we get how much it
+ * allocates per operation (gc.alloc.rate.norm) - most of the time spent in this engine has been the garbage collector
+ * cleaning up after it. Pass a regular expression to run only the matching benchmarks, e.g. "SearchBenchmark". */
+public class BenchmarkRunner {
+
+	public static void main(final String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "benchmarks\\..*")
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import board_construction.Board;
+import board_construction.BoardTransform;
+import board_construction.FenParser;
+import chess_pieces.Move;
+
+/* Building boards: the starting board from scratch, and the board after a move - both by executing the move directly
+ * and through Player.makeMove(), which is how the game makes moves. Each call works through the moves of the position
+ * in turn, so every kind of move in it gets measured. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME,
+		BenchmarkPositions.ROOK_ENDGAME})
+	public String position;
+
+	private Board board;
+	private List<Move> moves;
+	private int nextMove;
+
+	@Setup
+	public void setup() {
+		this.board = FenParser.createBoard(BenchmarkPositions.getFen(this.position));
+		this.moves = new ArrayList<>(this.board.currentPlayer().getAllowedMoves());
+	}
+
+	@Benchmark
+	public Board createBoard() {
+		return Board.createBoard();
+	}
+
+	@Benchmark
+	public Board executeMove() {
+		return nextMove().execute();
+	}
+
+	@Benchmark
+	public BoardTransform makeMove() {
+		return this.board.currentPlayer().makeMove(nextMove());
+	}
+
+	private Move nextMove() {
+		final Move move = this.moves.get(this.nextMove);
+		this.nextMove = (this.nextMove + 1) % this.moves.size();
+		return move;
+	}
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.BoardEvaluator;
+import ai.StandardBoardEvaluator;
+import board_construction.Board;
+import board_construction.FenParser;
+import board_construction.SearchBoard;
+
+/* The evaluator scores mobility from both sides' moves, which a Board only works out once and then keeps. So the
+ * Board is built afresh before every call, otherwise all but the first call would be scoring moves already worked
+ * out. A SearchBoard forgets its move counts whenever a move is made or taken back, so one is made and taken back
+ * around each evaluation, which is what the search does too. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+	@Param({BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME,
+		BenchmarkPositions.ROOK_ENDGAME, BenchmarkPositions.PAWN_ENDGAME})
+	public String position;
+
+	private final BoardEvaluator evaluator = new StandardBoardEvaluator();
+	private Board board;
+	private SearchBoard searchBoard;
+	private int firstMove;
+
+	@Setup(Level.Trial)
+	public void setupSearchBoard() {
+		this.searchBoard = new SearchBoard(FenParser.createBoard(BenchmarkPositions.getFen(this.position)));
+		final int[] moves = this.searchBoard.getMoveList();
+		this.searchBoard.generateMoves(moves);
+		this.firstMove = moves[0];
+	}
+
+	@Setup(Level.Invocation)
+	public void setupBoard() {
+		this.board = FenParser.createBoard(BenchmarkPositions.getFen(this.position));
+	}
+
+	@Benchmark
+	public int evaluateBoard() {
+		return this.evaluator.evaluate(this.board, 0);
+	}
+
+	@Benchmark
+	public int evaluateSearchBoard() {
+		this.searchBoard.makeMove(this.firstMove);
+		final int score = this.evaluator.evaluate(this.searchBoard, 0);
+		this.searchBoard.unmakeMove();
+		return score;
+	}
+}
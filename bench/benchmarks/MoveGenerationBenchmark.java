@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import board_construction.Board;
+import board_construction.FenParser;
+import board_construction.SearchBoard;
+import chess_pieces.ChessPiece;
+import chess_pieces.ChessPiece.PieceType;
+
+/* Move generation for each type of piece on its own, calling determineAllowedMoves() directly (the board caches the
+ * moves it hands out, so going through the Player would only measure the cache after the first call). The search
+ * generates its moves on a SearchBoard instead, so that is measured too. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+	@Param({BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME})
+	public String position;
+
+	@Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+	public PieceType pieceType;
+
+	private Board board;
+	private final List<ChessPiece> pieces = new ArrayList<>();
+	private SearchBoard searchBoard;
+	private int[] moveList;
+
+	@Setup
+	public void setup() {
+		this.board = FenParser.createBoard(BenchmarkPositions.getFen(this.position));
+		for(final ChessPiece piece : this.board.currentPlayer().getActivePiece()) {
+			if(piece.getPieceType() == this.pieceType) {
+				this.pieces.add(piece);
+			}
+		}
+		this.searchBoard = new SearchBoard(this.board);
+		this.moveList = this.searchBoard.getMoveList();
+	}
+
+	@Benchmark
+	public void determineAllowedMoves(final Blackhole blackhole) {
+		for(final ChessPiece piece : this.pieces) {
+			blackhole.consume(piece.determineAllowedMoves(this.board));
+		}
+	}
+
+	// Doesn't depend on the piece type, all of the side to move's moves are generated
+	@Benchmark
+	public int generateSearchMoves() {
+		return this.searchBoard.generateMoves(this.moveList);
+	}
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.AlphaBeta;
+import ai.MiniMax;
+import ai.TranspositionTable;
+import board_construction.Board;
+import board_construction.FenParser;
+import chess_pieces.Move;
+
+/* A complete fixed depth search from each position, as the ai makes when it's its turn. Searches take long enough
+ * that the average time of one is reported rather than the number per second. Alpha-beta's transposition table is
+ * made once and emptied before each search (outside the timing), so each search starts from nothing without the
+ * allocation of a new table being measured as well. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+	@Param({BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME,
+		BenchmarkPositions.PROMOTIONS, BenchmarkPositions.ROOK_ENDGAME, BenchmarkPositions.PAWN_ENDGAME})
+	public String position;
+
+	@Param({"3"})
+	public int depth;
+
+	private Board board;
+	private final TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_IN_MB);
+
+	@Setup
+	public void setup() {
+		this.board = FenParser.createBoard(BenchmarkPositions.getFen(this.position));
+	}
+
+	@Setup(Level.Invocation)
+	public void clearTranspositionTable() {
+		this.transpositionTable.clear();
+	}
+
+	@Benchmark
+	public Move miniMax() {
+		return new MiniMax(this.depth).execute(this.board);
+	}
+
+	@Benchmark
+	public Move alphaBeta() {
+		return new AlphaBeta(this.depth, this.transpositionTable).execute(this.board);
+	}
+}
@@ -0,0 +1,374 @@
+package ai;
+
+import board_construction.Board;
+import board_construction.SearchBoard;
+import chess_pieces.Move;
+import chess_pieces.Move.MoveFactory;
+import chess_pieces.PackedMove;
+
+/* Minimax with alpha-beta pruning. Without quiescence it finds the same value as MiniMax for the same depth, but it
+ * can stop looking at a position's moves as soon as one of them shows the position is already worse for the side
+ * which chose to play into it than something that side had available earlier on.
+ *
+ * Two bounds are passed down through the search: alpha, the value white (the maximising player) is already sure of
+ * somewhere else in the tree, and beta, the value black (the minimising player) is already sure of. Once a position
+ * white moves in has a move worth at least beta, black would never let the game reach it, so the rest of its moves
+ * don't matter - and the same the other way round for black and alpha. How much that saves depends on how soon the
+ * best move is tried, so the moves are handed out by a MovePicker, in the order the search's MoveOrdering suggests.
+ * With good ordering the search looks at roughly the square root of the positions MiniMax does, which means about
+ * twice the depth in the same time.
+ *
+ * Positions reached again by a different order of moves are looked up in a TranspositionTable. If one was searched
+ * deeply enough already its score can be used as it is, and otherwise its best move is tried first.
+ *
+ * At the end of the search a position could be in the middle of an exchange, and evaluating it there would miss the
+ * piece about to be taken back (the horizon effect). So a quiescence search carries on from there with just the
+ * captures and promotions until the position is quiet. The side to move can always decline to capture, so the
+ * evaluation of the position stands as a bound (standing pat), and captures that couldn't bring the score up to the
+ * other bound even if they won the piece for nothing aren't tried at all (delta pruning).
+ *
+ * When moves have the same value the two searches may pick different ones, as alpha-beta only knows that the later
+ * moves are no better, not exactly what they are worth. */
+public class AlphaBeta implements MoveTheory {
+
+	static final long NO_DEADLINE = Long.MAX_VALUE;
+	// Reading the clock costs more than visiting a position, so it's only looked at once in this many
+	private static final int DEADLINE_CHECK_INTERVAL = 1024;
+	// A sequence of captures can't go on much longer than this, there aren't the pieces to take
+	private static final int MAX_QUIESCENCE_PLY = 48;
+	/* The deepest search the board has room for: every ply of it, and then a full quiescence search, is a move made on
+	 * the one board, and it only keeps MAX_PLY moves to take back */
+	public static final int MAX_DEPTH = SearchBoard.MAX_PLY - MAX_QUIESCENCE_PLY;
+	// How much more than the piece taken a capture could change the evaluation by, e.g. through mobility
+	private static final int DELTA_MARGIN = 200;
+
+	private final BoardEvaluator boardEvaluator;
+	private final int depth;
+	// A move picker for each ply of the search, so picking moves doesn't allocate
+	private final MovePicker[] movePickers;
+	private final MovePicker[] quiescencePickers;
+	private final boolean useQuiescence;
+	// The killers and history the pickers order moves by, kept up to date with the cutoffs the search finds
+	private final MoveOrdering moveOrdering;
+	private final TranspositionTable transpositionTable;
+	// How long the last search took, and how many positions it evaluated, so searches can be measured and compared
+	private long executionTime;
+	private long boardsEvaluated;
+	/* The depth of the search under way, which IterativeDeepening keeps below the full depth, and the time it has to
+	 * finish by. Once the time is up the search unwinds as quickly as it can and what it found is thrown away */
+	private int searchDepth;
+	private long deadline;
+	private long nodesVisited;
+	private boolean isTimeUp;
+
+	public AlphaBeta(final int depth) {
+		this(depth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_IN_MB));
+	}
+
+	// The table can be kept from one move to the next, or shared with other searches
+	public AlphaBeta(final int depth, final TranspositionTable transpositionTable) {
+		this(depth, transpositionTable, true);
+	}
+
+	// Without quiescence the positions at the end of the search are evaluated as they are, as MiniMax does
+	public AlphaBeta(final int depth, final TranspositionTable transpositionTable, final boolean useQuiescence) {
+		if(depth < 1 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Alpha-beta needs a depth from 1 to " + MAX_DEPTH + ", not " + depth);
+		}
+		this.useQuiescence = useQuiescence;
+		this.transpositionTable = transpositionTable;
+		this.boardEvaluator = new StandardBoardEvaluator();
+		this.depth = depth;
+		this.searchDepth = depth;
+		this.deadline = NO_DEADLINE;
+		this.moveOrdering = new MoveOrdering(depth);
+		this.movePickers = new MovePicker[depth + 1];
+		for(int i = 0; i < this.movePickers.length; i++) {
+			this.movePickers[i] = new MovePicker(this.moveOrdering);
+		}
+		this.quiescencePickers = new MovePicker[useQuiescence ? MAX_QUIESCENCE_PLY : 0];
+		for(int i = 0; i < this.quiescencePickers.length; i++) {
+			this.quiescencePickers[i] = new MovePicker(this.moveOrdering);
+		}
+	}
+
+	@Override public String toString() {
+		return "AlphaBeta";
+	}
+
+	public long getExecutionTime() {
+		return this.executionTime;
+	}
+
+	public long getBoardsEvaluated() {
+		return this.boardsEvaluated;
+	}
+
+
+	@Override public Move execute(final Board board) {
+		final long startTime = System.currentTimeMillis();
+		this.boardsEvaluated = 0;
+
+		System.out.println(board.currentPlayer() + " CALCULATING with a depth of : " + this.depth);
+
+		newSearch();
+		final int bestMove = searchRoot(new SearchBoard(board), this.depth, PackedMove.NO_MOVE, NO_DEADLINE);
+		this.executionTime = System.currentTimeMillis() - startTime;
+		System.out.println(board.currentPlayer() + " SELECTS " + PackedMove.toString(bestMove) + " after evaluating " +
+				this.boardsEvaluated + " boards in " + this.executionTime + " ms");
+		return MoveFactory.createMove(board, bestMove);
+	}
+
+	// To be called before searching a new position, but not between the depths of the same one
+	void newSearch() {
+		this.transpositionTable.newSearch();
+		this.moveOrdering.newSearch();
+	}
+
+	/* Searches the position to the given depth, which can't be more than the depth the search was made with, trying
+	 * the first move given (if it's not NO_MOVE) or else the move from the table before any other. Gives back the best
+	 * move, or NO_MOVE if the deadline came before the search finished */
+	int searchRoot(final SearchBoard searchBoard, final int depth, final int firstMove, final long deadline) {
+		final boolean isWhite = searchBoard.getSideToMove().isWhite();
+		int bestMove = PackedMove.NO_MOVE;
+		int alpha = Integer.MIN_VALUE;
+		int beta = Integer.MAX_VALUE;
+		this.searchDepth = depth;
+		this.deadline = deadline;
+		this.nodesVisited = 0;
+		this.isTimeUp = false;
+
+		final MovePicker movePicker = this.movePickers[0];
+		movePicker.init(searchBoard, firstMove != PackedMove.NO_MOVE ? firstMove :
+				TranspositionTable.getBestMove(this.transpositionTable.probe(searchBoard.getZobristKey())),
+				PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+		for(int move = movePicker.nextMove(); move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+			searchBoard.makeMove(move);
+			final int currentValue = isWhite ? min(searchBoard, depth - 1, alpha, beta) :
+					max(searchBoard, depth - 1, alpha, beta);
+			searchBoard.unmakeMove();
+			if(this.isTimeUp) {
+				return PackedMove.NO_MOVE;
+			}
+
+			// At the root, the bound of the side to move only moves when a better move is found
+			if(isWhite && currentValue > alpha) {
+				alpha = currentValue;
+				bestMove = move;
+			} else if(!isWhite && currentValue < beta) {
+				beta = currentValue;
+				bestMove = move;
+			}
+			// Even a hopeless position has to have a move chosen
+			if(bestMove == PackedMove.NO_MOVE) {
+				bestMove = move;
+			}
+		}
+		if(bestMove != PackedMove.NO_MOVE) {
+			this.transpositionTable.store(searchBoard.getZobristKey(), isWhite ? alpha : beta, bestMove, depth,
+					TranspositionTable.EXACT);
+		}
+		return bestMove;
+	}
+
+
+	// As in MiniMax, min calls max and max calls min, but with the bounds passed down through them
+	public int min(final SearchBoard board, final int depth, final int alpha, int beta) {
+		if(isTimeUp()) {
+			return 0;
+		}
+		if(depth == 0) {
+			return this.useQuiescence ? quiescenceMin(board, alpha, beta, 0) : evaluate(board, depth);
+		}
+		final long entry = this.transpositionTable.probe(board.getZobristKey());
+		if(TranspositionTable.isCutoff(entry, depth, alpha, beta)) {
+			return TranspositionTable.getScore(entry, depth);
+		}
+		final int ply = this.searchDepth - depth;
+		final MovePicker movePicker = this.movePickers[ply];
+		movePicker.init(board, TranspositionTable.getBestMove(entry), this.moveOrdering.getFirstKiller(ply),
+				this.moveOrdering.getSecondKiller(ply));
+		int move = movePicker.nextMove();
+		if(move == PackedMove.NO_MOVE) {
+			// the moves are only ever legal ones, so this is checkmate or stalemate - the evaluator tells which
+			return evaluate(board, depth);
+		}
+		final int originalBeta = beta;
+		int lowestSeenValue = Integer.MAX_VALUE;
+		int bestMove = PackedMove.NO_MOVE;
+		for(; move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+			board.makeMove(move);
+			final int currentValue = max(board, depth - 1, alpha, beta);
+			board.unmakeMove();
+			// the value is meaningless once the time is up, so it mustn't be compared with anything
+			if(this.isTimeUp) {
+				return 0;
+			}
+			if(currentValue < lowestSeenValue) {
+				lowestSeenValue = currentValue;
+				bestMove = move;
+				beta = Math.min(beta, currentValue);
+				// white already has something at least this good elsewhere, so won't let black get here
+				if(lowestSeenValue <= alpha) {
+					this.moveOrdering.recordCutoff(board, move, ply, depth);
+					break;
+				}
+			}
+		}
+		// A cutoff means the position is worth this or less, and if nothing got under beta it's worth at least this
+		store(board, lowestSeenValue, bestMove, depth, lowestSeenValue <= alpha ? TranspositionTable.UPPER_BOUND :
+				lowestSeenValue >= originalBeta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT);
+		return lowestSeenValue;
+	}
+
+	public int max(final SearchBoard board, final int depth, int alpha, final int beta) {
+		if(isTimeUp()) {
+			return 0;
+		}
+		if(depth == 0) {
+			return this.useQuiescence ? quiescenceMax(board, alpha, beta, 0) : evaluate(board, depth);
+		}
+		final long entry = this.transpositionTable.probe(board.getZobristKey());
+		if(TranspositionTable.isCutoff(entry, depth, alpha, beta)) {
+			return TranspositionTable.getScore(entry, depth);
+		}
+		final int ply = this.searchDepth - depth;
+		final MovePicker movePicker = this.movePickers[ply];
+		movePicker.init(board, TranspositionTable.getBestMove(entry), this.moveOrdering.getFirstKiller(ply),
+				this.moveOrdering.getSecondKiller(ply));
+		int move = movePicker.nextMove();
+		if(move == PackedMove.NO_MOVE) {
+			return evaluate(board, depth);
+		}
+		final int originalAlpha = alpha;
+		int highestSeenValue = Integer.MIN_VALUE;
+		int bestMove = PackedMove.NO_MOVE;
+		for(; move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+			board.makeMove(move);
+			final int currentValue = min(board, depth - 1, alpha, beta);
+			board.unmakeMove();
+			if(this.isTimeUp) {
+				return 0;
+			}
+			if(currentValue > highestSeenValue) {
+				highestSeenValue = currentValue;
+				bestMove = move;
+				alpha = Math.max(alpha, currentValue);
+				// black already has something at least this good elsewhere, so won't let white get here
+				if(highestSeenValue >= beta) {
+					this.moveOrdering.recordCutoff(board, move, ply, depth);
+					break;
+				}
+			}
+		}
+		store(board, highestSeenValue, bestMove, depth, highestSeenValue >= beta ? TranspositionTable.LOWER_BOUND :
+				highestSeenValue <= originalAlpha ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT);
+		return highestSeenValue;
+	}
+
+	/* The quiescence search, with min and max again. Positions in check aren't quiet however much there is to take, and
+	 * the side to move can't stand pat, so every way out of check is tried */
+	private int quiescenceMin(final SearchBoard board, final int alpha, int beta, final int ply) {
+		if(isTimeUp()) {
+			return 0;
+		}
+		if(ply == MAX_QUIESCENCE_PLY) {
+			return evaluate(board, 0);
+		}
+		final boolean isInCheck = board.isInCheck(board.getSideToMove());
+		final MovePicker movePicker = this.quiescencePickers[ply];
+		int standPat = Integer.MAX_VALUE;
+		if(isInCheck) {
+			movePicker.init(board, PackedMove.NO_MOVE, PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+		} else {
+			standPat = evaluate(board, 0);
+			if(standPat <= alpha) {
+				return standPat;
+			}
+			beta = Math.min(beta, standPat);
+			movePicker.initCaptures(board);
+		}
+		int lowestSeenValue = standPat;
+		for(int move = movePicker.nextMove(); move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+			// even winning the piece for nothing wouldn't get black down to what it already has elsewhere
+			if(!isInCheck && standPat - MoveOrdering.captureValue(board, move) - DELTA_MARGIN >= beta) {
+				continue;
+			}
+			board.makeMove(move);
+			final int currentValue = quiescenceMax(board, alpha, beta, ply + 1);
+			board.unmakeMove();
+			if(this.isTimeUp) {
+				return 0;
+			}
+			if(currentValue < lowestSeenValue) {
+				lowestSeenValue = currentValue;
+				beta = Math.min(beta, currentValue);
+				if(lowestSeenValue <= alpha) {
+					break;
+				}
+			}
+		}
+		// in check with no way out is checkmate, which the evaluator scores
+		return lowestSeenValue == Integer.MAX_VALUE ? evaluate(board, 0) : lowestSeenValue;
+	}
+
+	private int quiescenceMax(final SearchBoard board, int alpha, final int beta, final int ply) {
+		if(isTimeUp()) {
+			return 0;
+		}
+		if(ply == MAX_QUIESCENCE_PLY) {
+			return evaluate(board, 0);
+		}
+		final boolean isInCheck = board.isInCheck(board.getSideToMove());
+		final MovePicker movePicker = this.quiescencePickers[ply];
+		int standPat = Integer.MIN_VALUE;
+		if(isInCheck) {
+			movePicker.init(board, PackedMove.NO_MOVE, PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+		} else {
+			standPat = evaluate(board, 0);
+			if(standPat >= beta) {
+				return standPat;
+			}
+			alpha = Math.max(alpha, standPat);
+			movePicker.initCaptures(board);
+		}
+		int highestSeenValue = standPat;
+		for(int move = movePicker.nextMove(); move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+			// even winning the piece for nothing wouldn't get white up to what it already has elsewhere
+			if(!isInCheck && standPat + MoveOrdering.captureValue(board, move) + DELTA_MARGIN <= alpha) {
+				continue;
+			}
+			board.makeMove(move);
+			final int currentValue = quiescenceMin(board, alpha, beta, ply + 1);
+			board.unmakeMove();
+			if(this.isTimeUp) {
+				return 0;
+			}
+			if(currentValue > highestSeenValue) {
+				highestSeenValue = currentValue;
+				alpha = Math.max(alpha, currentValue);
+				if(highestSeenValue >= beta) {
+					break;
+				}
+			}
+		}
+		return highestSeenValue == Integer.MIN_VALUE ? evaluate(board, 0) : highestSeenValue;
+	}
+
+	private void store(final SearchBoard board, final int score, final int bestMove, final int depth, final int bound) {
+		this.transpositionTable.store(board.getZobristKey(), score, bestMove, depth, bound);
+	}
+
+	private boolean isTimeUp() {
+		if(!this.isTimeUp && ++this.nodesVisited % DEADLINE_CHECK_INTERVAL == 0 &&
+				System.currentTimeMillis() >= this.deadline) {
+			this.isTimeUp = true;
+		}
+		return this.isTimeUp;
+	}
+
+	private int evaluate(final SearchBoard board, final int depth) {
+		this.boardsEvaluated++;
+		return this.boardEvaluator.evaluate(board, depth);
+	}
+}
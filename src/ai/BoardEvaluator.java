@@ -1,6 +1,7 @@
 package ai;
 
 import board_construction.Board;
+import board_construction.SearchBoard;
 
 /* 
  * 
@@ -10,4 +11,7 @@ public interface BoardEvaluator {
 	// By convention, the most positive the number is - the most white is winning, by convention
 	int evaluate(Board board, int depth);
 	
+	// The same evaluation, made on the mutable board the search works with
+	int evaluate(SearchBoard board, int depth);
+	
 }
@@ -0,0 +1,102 @@
+package ai;
+
+import board_construction.Board;
+import board_construction.SearchBoard;
+import chess_pieces.Move;
+import chess_pieces.Move.MoveFactory;
+import chess_pieces.PackedMove;
+
+/* Iterative deepening searches with alpha-beta to depth 1, then depth 2, then 3 and so on until the time allowed for
+ * the move runs out, and plays the best move of the deepest search that finished. A search cut off part way through
+ * is thrown away, as it's only looked at some of the moves. So the time a move takes is known up front whatever the
+ * position, rather than the depth - a bare endgame just gets searched deeper than a crowded middlegame.
+ *
+ * Each depth takes several times as long as the one before, so the shallower searches cost little, and some of that
+ * is won back: the best move from one depth is tried first at the next, where it's usually still the best, so the
+ * alpha-beta bounds are tight from the start. The transposition table does the same for the positions further down,
+ * as they were searched (one ply less deep) the time before. */
+public class IterativeDeepening implements MoveTheory {
+
+	private final long timeLimit;
+	private final int maxDepth;
+	private final AlphaBeta alphaBeta;
+	// How long the last search took, how many positions it evaluated and the deepest depth it finished
+	private long executionTime;
+	private long boardsEvaluated;
+	private int depthReached;
+
+	/* The time limit is in milliseconds. The depths searched stop at the max depth even if there's time left, which
+	 * can't be more than AlphaBeta.MAX_DEPTH */
+	public IterativeDeepening(final long timeLimit, final int maxDepth) {
+		this(timeLimit, maxDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_IN_MB));
+	}
+
+	public IterativeDeepening(final long timeLimit, final int maxDepth, final TranspositionTable transpositionTable) {
+		if(timeLimit <= 0 || maxDepth < 1 || maxDepth > AlphaBeta.MAX_DEPTH) {
+			throw new IllegalArgumentException("Iterative deepening needs some time and a max depth from 1 to " +
+					AlphaBeta.MAX_DEPTH);
+		}
+		this.timeLimit = timeLimit;
+		this.maxDepth = maxDepth;
+		this.alphaBeta = new AlphaBeta(maxDepth, transpositionTable);
+	}
+
+	@Override public String toString() {
+		return "IterativeDeepening";
+	}
+
+	public long getExecutionTime() {
+		return this.executionTime;
+	}
+
+	public long getBoardsEvaluated() {
+		return this.boardsEvaluated;
+	}
+
+	public int getDepthReached() {
+		return this.depthReached;
+	}
+
+
+	@Override public Move execute(final Board board) {
+		final long startTime = System.currentTimeMillis();
+		final long deadline = startTime + this.timeLimit;
+		final long boardsEvaluatedBefore = this.alphaBeta.getBoardsEvaluated();
+		int bestMove = PackedMove.NO_MOVE;
+		this.depthReached = 0;
+
+		System.out.println(board.currentPlayer() + " CALCULATING for up to " + this.timeLimit + " ms");
+
+		// The depths all count as one search, so each keeps what the ones before learnt about the position
+		this.alphaBeta.newSearch();
+		final SearchBoard searchBoard = new SearchBoard(board);
+		final int[] moves = searchBoard.getMoveList();
+		if(searchBoard.generateMoves(moves) == 1) {
+			// there's nothing to think about
+			bestMove = moves[0];
+		} else {
+			for(int depth = 1; depth <= this.maxDepth; depth++) {
+				final long timeUsed = System.currentTimeMillis() - startTime;
+				/* The next depth takes longer than all those before it put together, so once half the time has gone
+				 * it would almost certainly be cut off - better to give the time back */
+				if(depth > 1 && timeUsed * 2 >= this.timeLimit) {
+					break;
+				}
+				// Depth 1 is always allowed to finish, so there's always a move to play
+				final int move = this.alphaBeta.searchRoot(searchBoard, depth, bestMove,
+						depth == 1 ? AlphaBeta.NO_DEADLINE : deadline);
+				if(move == PackedMove.NO_MOVE) {
+					break;
+				}
+				bestMove = move;
+				this.depthReached = depth;
+			}
+		}
+		this.executionTime = System.currentTimeMillis() - startTime;
+		this.boardsEvaluated = this.alphaBeta.getBoardsEvaluated() - boardsEvaluatedBefore;
+		System.out.println(board.currentPlayer() + " SELECTS " + PackedMove.toString(bestMove) + " at a depth of " +
+				this.depthReached + " after evaluating " + this.boardsEvaluated + " boards in " + this.executionTime +
+				" ms");
+		return MoveFactory.createMove(board, bestMove);
+	}
+}
@@ -1,8 +1,10 @@
 package ai;
 
 import board_construction.Board;
-import board_construction.BoardTransform;
+import board_construction.SearchBoard;
 import chess_pieces.Move;
+import chess_pieces.Move.MoveFactory;
+import chess_pieces.PackedMove;
 
 /* The ai in my chess engine will implement the co-recursive minimax (minmax) algorithm. This is based around a tactic
  *  in which individuals attempt either to minimise their own maximum losses or to reduce the most an opponent will gain. 
@@ -14,6 +16,9 @@ public class MiniMax implements MoveTheory {
 	
 	private final BoardEvaluator boardEvaluator;
 	private final int depth;
+	// How long the last search took, and how many positions it evaluated, so searches can be measured and compared
+	private long executionTime;
+	private long boardsEvaluated;
 	
 	public MiniMax(final int depth) {
 		this.boardEvaluator = new StandardBoardEvaluator();
@@ -24,82 +29,112 @@ public class MiniMax implements MoveTheory {
 		return "MiniMax";
 	}
 	
+	public long getExecutionTime() {
+		return this.executionTime;
+	}
+	
+	public long getBoardsEvaluated() {
+		return this.boardsEvaluated;
+	}
+	
 	
 	@Override public Move execute(Board board) {
 		final long startTime = System.currentTimeMillis();
-		Move bestMove = null;
+		int bestMove = PackedMove.NO_MOVE;
 		
 		int highestSeenValue = Integer.MIN_VALUE;
 		int lowestSeenValue = Integer.MAX_VALUE;
 		int currentValue;
+		this.boardsEvaluated = 0;
 		
 		System.out.println(board.currentPlayer() + " CALCULATING with a depth of : " + this.depth);
 		
-		int numMoves = board.currentPlayer().getAllowedMoves().size();
+		/* Rather than building a new Board for every position we look at, the search works on a single mutable copy
+		 * of the board, making each move and then taking it back again (see SearchBoard) */
+		final SearchBoard searchBoard = new SearchBoard(board);
 		
-		for(final Move move : board.currentPlayer().getAllowedMoves()) {
+		final int[] moves = searchBoard.getMoveList();
+		final int numMoves = searchBoard.generateMoves(moves);
+		for(int i = 0; i < numMoves; i++) {
 			/* What I say here is that if the board you came from the current player was white, then your next move
 			 * will be a minimising move. Remembering white is the 'maximising' player, black is the 'minimising' player */
-			final BoardTransform boardTransform = board.currentPlayer().makeMove(move);
-			if(boardTransform.getMoveStatus().isDone()) {
-				// Begin recursion, using ternary operator to determine which method we need to call 
-				currentValue = board.currentPlayer().getColour().isWhite() ? 
-						min(boardTransform.getTransformedBoard(), this.depth - 1) : 
-							max(boardTransform.getTransformedBoard(), this.depth - 1);
-				
-				if(board.currentPlayer().getColour().isWhite() && currentValue >= highestSeenValue) {
-					highestSeenValue = currentValue;
-					bestMove = move;
-				} else if(board.currentPlayer().getColour().isBlack() && currentValue <= lowestSeenValue) {
-					lowestSeenValue = currentValue;
-					bestMove = move;
-				}
+			searchBoard.makeMove(moves[i]);
+			// Begin recursion, using ternary operator to determine which method we need to call 
+			currentValue = board.currentPlayer().getColour().isWhite() ? 
+					min(searchBoard, this.depth - 1) : 
+						max(searchBoard, this.depth - 1);
+			searchBoard.unmakeMove();
+			
+			if(board.currentPlayer().getColour().isWhite() && currentValue >= highestSeenValue) {
+				highestSeenValue = currentValue;
+				bestMove = moves[i];
+			} else if(board.currentPlayer().getColour().isBlack() && currentValue <= lowestSeenValue) {
+				lowestSeenValue = currentValue;
+				bestMove = moves[i];
 			}
 		}
-		long executionTime = System.currentTimeMillis() - startTime;
-		return bestMove;
+		this.executionTime = System.currentTimeMillis() - startTime;
+		System.out.println(board.currentPlayer() + " SELECTS " + PackedMove.toString(bestMove) + " after evaluating " + 
+				this.boardsEvaluated + " boards in " + this.executionTime + " ms");
+		// The search only deals in packed moves, the rest of the game wants the matching Move on the board
+		return MoveFactory.createMove(board, bestMove);
 	}
 	
 	
 	// Notice the recursive behaviour - min calls max and max calls min. 
-	public int min(final Board board, final int depth) {
-		if(depth == 0 || isEndGameScenario(board)) {
-			return this.boardEvaluator.evaluate(board, depth);
+	public int min(final SearchBoard board, final int depth) {
+		if(depth == 0) {
+			return evaluate(board, depth);
+		}
+		final int[] moves = board.getMoveList();
+		final int numMoves = board.generateMoves(moves);
+		if(isEndGameScenario(numMoves)) {
+			return evaluate(board, depth);
 		}
 		int lowestSeenValue = Integer.MAX_VALUE;  // We give this an initial arbitrarily high value
 		/* Now go through and 'score' the allowed moves on current board. We return that lowest valued move.
 		 * This is why lowestSeenValue must start large, so we get values of lower values than it returned */
-		for(final Move move : board.currentPlayer().getAllowedMoves()) {
-			final BoardTransform boardTransform = board.currentPlayer().makeMove(move);
-			if(boardTransform.getMoveStatus().isDone()) {
-				final int currentValue = max(boardTransform.getTransformedBoard(), depth - 1);
-				if(currentValue <= lowestSeenValue) {
-					lowestSeenValue = currentValue;
-				}
+		for(int i = 0; i < numMoves; i++) {
+			board.makeMove(moves[i]);
+			final int currentValue = max(board, depth - 1);
+			board.unmakeMove();
+			if(currentValue <= lowestSeenValue) {
+				lowestSeenValue = currentValue;
 			}
 		}
 		return lowestSeenValue;
 	}
 	
-	public int max(final Board board, final int depth) {
-		if(depth == 0 || isEndGameScenario(board)) {
-			return this.boardEvaluator.evaluate(board, depth);
+	public int max(final SearchBoard board, final int depth) {
+		if(depth == 0) {
+			return evaluate(board, depth);
+		}
+		final int[] moves = board.getMoveList();
+		final int numMoves = board.generateMoves(moves);
+		if(isEndGameScenario(numMoves)) {
+			return evaluate(board, depth);
 		}
 		int highestSeenValue = Integer.MIN_VALUE;
-		for(final Move move : board.currentPlayer().getAllowedMoves()) {
-			final BoardTransform boardTransform = board.currentPlayer().makeMove(move);
-			if(boardTransform.getMoveStatus().isDone()) {
-				final int currentValue = min(boardTransform.getTransformedBoard(), depth - 1);
-				if(currentValue >= highestSeenValue) {
-				 highestSeenValue = currentValue;
-				}
+		for(int i = 0; i < numMoves; i++) {
+			board.makeMove(moves[i]);
+			final int currentValue = min(board, depth - 1);
+			board.unmakeMove();
+			if(currentValue >= highestSeenValue) {
+			 highestSeenValue = currentValue;
 			}
 		}
 		return highestSeenValue;
 	}
 	
-	private static boolean isEndGameScenario(final Board board) {
-		return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStalemate();
+	private int evaluate(final SearchBoard board, final int depth) {
+		this.boardsEvaluated++;
+		return this.boardEvaluator.evaluate(board, depth);
+	}
+	
+	/* The moves are only ever legal ones, so having none means checkmate or stalemate. Which one it is doesn't
+	 * matter here, the evaluator tells them apart */
+	private static boolean isEndGameScenario(final int numMoves) {
+		return numMoves == 0;
 	}
 
 }
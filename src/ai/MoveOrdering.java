@@ -0,0 +1,105 @@
+package ai;
+
+import board_construction.SearchBoard;
+import chess_pieces.ChessPiece.PieceType;
+import chess_pieces.PackedMove;
+
+/* What a search knows about which moves are likely to be good before it has tried them, used by the MovePicker to
+ * decide the order they're tried in. Alpha-beta can stop looking at a position's moves as soon as one is good enough,
+ * so the sooner that move comes up the fewer positions are searched for the same depth.
+ *
+ * Captures are ordered on their own merits: most valuable victim first and, among those, least valuable attacker
+ * (MVV-LVA). Quiet moves give no such clue, so the search remembers which of them caused cutoffs:
+ *   - killer moves, the last two quiet moves to cause a cutoff at each ply. Positions at the same ply are often
+ *     alike (siblings differing in one move), so the same refutation often works again
+ *   - the history table, a score for each side, source tile and destination tile, raised every time a quiet move
+ *     causes a cutoff, by more the deeper the search under it was. It orders the rest of the quiet moves
+ *
+ * One of these is kept per search, alongside its move pickers, and newSearch() called at the start of each. */
+public class MoveOrdering {
+
+	// Once any score gets this high they're all halved, keeping them in range and letting newer cutoffs count for more
+	private static final int MAX_HISTORY_SCORE = 1 << 20;
+	// The source and destination tiles, the low 12 bits of a packed move
+	private static final int NUM_TILE_PAIRS = 1 << 12;
+
+	private final int[][] killers;
+	private final int[][] history = new int[2][NUM_TILE_PAIRS];
+
+	// Killers are kept for plies 0 to maxPly
+	public MoveOrdering(final int maxPly) {
+		this.killers = new int[maxPly + 1][2];
+	}
+
+	/* Killers are only any use within a search, but the history still says something about the position after a move
+	 * has been made, so it's just made to count for less */
+	public void newSearch() {
+		for(final int[] plyKillers : this.killers) {
+			plyKillers[0] = PackedMove.NO_MOVE;
+			plyKillers[1] = PackedMove.NO_MOVE;
+		}
+		ageHistory();
+	}
+
+	public int getFirstKiller(final int ply) {
+		return this.killers[ply][0];
+	}
+
+	public int getSecondKiller(final int ply) {
+		return this.killers[ply][1];
+	}
+
+	// The history score of a quiet move for the side to move on the board
+	public int getHistoryScore(final SearchBoard board, final int move) {
+		return this.history[board.getSideToMove().ordinal()][move & (NUM_TILE_PAIRS - 1)];
+	}
+
+	/* To be called when a move causes a cutoff, with the move taken back so the board's side to move is the one that
+	 * played it. Captures and promotions are ordered well enough already, so only quiet moves are remembered */
+	public void recordCutoff(final SearchBoard board, final int move, final int ply, final int depth) {
+		if(PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+			return;
+		}
+		final int[] plyKillers = this.killers[ply];
+		if(plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+		final int[] sideHistory = this.history[board.getSideToMove().ordinal()];
+		final int tilePair = move & (NUM_TILE_PAIRS - 1);
+		// A cutoff with a deep search under it saved a lot more work than one near the leaves
+		sideHistory[tilePair] += depth * depth;
+		if(sideHistory[tilePair] >= MAX_HISTORY_SCORE) {
+			ageHistory();
+		}
+	}
+
+	/* Most valuable victim, least valuable attacker: the value of the piece taken counts for far more than the value
+	 * of the piece taking it */
+	public static int scoreCapture(final SearchBoard board, final int move) {
+		final int attackerValue = board.getPieceType(PackedMove.getSourceTile(move)).getPieceValue();
+		return captureValue(board, move) * 16 - attackerValue / 100;
+	}
+
+	// The value of the piece a capture takes, plus the value of the new queen for a promotion
+	public static int captureValue(final SearchBoard board, final int move) {
+		int value = 0;
+		if(PackedMove.getKind(move) == PackedMove.EN_PASSANT) {
+			value += PieceType.PAWN.getPieceValue();
+		} else if(PackedMove.isCapture(move)) {
+			value += board.getPieceType(PackedMove.getDestinationTile(move)).getPieceValue();
+		}
+		if(PackedMove.isPromotion(move)) {
+			value += PackedMove.getPromotionPieceType(move).getPieceValue();
+		}
+		return value;
+	}
+
+	private void ageHistory() {
+		for(final int[] sideHistory : this.history) {
+			for(int i = 0; i < sideHistory.length; i++) {
+				sideHistory[i] >>= 1;
+			}
+		}
+	}
+}
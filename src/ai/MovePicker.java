@@ -0,0 +1,159 @@
+package ai;
+
+import board_construction.SearchBoard;
+import chess_pieces.PackedMove;
+
+/* Hands out the moves of a SearchBoard position one at a time, in the order they're most likely to be good, and
+ * only generates them as they're needed. In a search with pruning the first move tried very often turns out to be
+ * good enough to stop searching the position, and then the rest of the moves never need generating at all.
+ *
+ * The moves come in stages:
+ *   - the hash move, the best move found the last time this position was searched, if it's still legal here
+ *   - captures (and promotions), the most valuable piece taken first and, among those, by the least valuable piece
+ *   - killer moves, quiet moves which caused a cutoff in another position at the same depth of the search
+ *   - the rest of the quiet moves, those with the highest history scores first
+ * The scores and killers come from the search's MoveOrdering. No move is handed out twice. A search keeps a picker for
+ * each ply and resets it with init() for every position, so nothing is allocated while searching.
+ *
+ * A quiescence search only wants the captures, so initCaptures() starts a picker which stops after them. */
+public class MovePicker {
+
+	private static final int HASH_MOVE = 0;
+	private static final int GENERATE_CAPTURES = 1;
+	private static final int CAPTURES = 2;
+	private static final int FIRST_KILLER = 3;
+	private static final int SECOND_KILLER = 4;
+	private static final int GENERATE_QUIETS = 5;
+	private static final int QUIETS = 6;
+	private static final int DONE = 7;
+
+	private final int[] moves = new int[SearchBoard.MAX_MOVES];
+	private final int[] scores = new int[SearchBoard.MAX_MOVES];
+	private final MoveOrdering moveOrdering;
+
+	private SearchBoard board;
+	private int hashMove;
+	private int firstKiller;
+	private int secondKiller;
+	private int stage;
+	private int numMoves;
+	private int nextMove;
+	private boolean isCapturesOnly;
+
+	// A picker of its own, with no history to order the quiet moves by
+	public MovePicker() {
+		this(new MoveOrdering(0));
+	}
+
+	public MovePicker(final MoveOrdering moveOrdering) {
+		this.moveOrdering = moveOrdering;
+	}
+
+	// Starts picking the moves of the board's current position. Any of the moves given may be NO_MOVE
+	public void init(final SearchBoard board, final int hashMove, final int firstKiller, final int secondKiller) {
+		this.board = board;
+		this.hashMove = hashMove;
+		this.firstKiller = firstKiller;
+		this.secondKiller = secondKiller;
+		this.stage = HASH_MOVE;
+		this.numMoves = 0;
+		this.nextMove = 0;
+		this.isCapturesOnly = false;
+	}
+
+	// Starts picking just the captures (and promotions) of the board's current position
+	public void initCaptures(final SearchBoard board) {
+		init(board, PackedMove.NO_MOVE, PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+		this.stage = GENERATE_CAPTURES;
+		this.isCapturesOnly = true;
+	}
+
+	// The next move to try, or NO_MOVE once they've all been handed out
+	public int nextMove() {
+		while(true) {
+			switch(this.stage) {
+				case HASH_MOVE:
+					this.stage = GENERATE_CAPTURES;
+					if(this.hashMove != PackedMove.NO_MOVE && this.board.isLegalMove(this.hashMove)) {
+						return this.hashMove;
+					}
+					this.hashMove = PackedMove.NO_MOVE;
+					break;
+				case GENERATE_CAPTURES:
+					this.numMoves = this.board.generateCaptures(this.moves, 0);
+					this.nextMove = 0;
+					for(int i = 0; i < this.numMoves; i++) {
+						this.scores[i] = MoveOrdering.scoreCapture(this.board, this.moves[i]);
+					}
+					this.stage = CAPTURES;
+					break;
+				case CAPTURES:
+					if(this.nextMove < this.numMoves) {
+						final int move = pickBest();
+						if(move != this.hashMove) {
+							return move;
+						}
+						break;
+					}
+					this.stage = this.isCapturesOnly ? DONE : FIRST_KILLER;
+					break;
+				case FIRST_KILLER:
+					this.stage = SECOND_KILLER;
+					if(isUsableKiller(this.firstKiller)) {
+						return this.firstKiller;
+					}
+					this.firstKiller = PackedMove.NO_MOVE;
+					break;
+				case SECOND_KILLER:
+					this.stage = GENERATE_QUIETS;
+					if(this.secondKiller != this.firstKiller && isUsableKiller(this.secondKiller)) {
+						return this.secondKiller;
+					}
+					this.secondKiller = PackedMove.NO_MOVE;
+					break;
+				case GENERATE_QUIETS:
+					this.numMoves = this.board.generateQuietMoves(this.moves, 0);
+					this.nextMove = 0;
+					for(int i = 0; i < this.numMoves; i++) {
+						this.scores[i] = this.moveOrdering.getHistoryScore(this.board, this.moves[i]);
+					}
+					this.stage = QUIETS;
+					break;
+				case QUIETS:
+					if(this.nextMove < this.numMoves) {
+						final int move = pickBest();
+						if(move != this.hashMove && move != this.firstKiller && move != this.secondKiller) {
+							return move;
+						}
+						break;
+					}
+					this.stage = DONE;
+					break;
+				default:
+					return PackedMove.NO_MOVE;
+			}
+		}
+	}
+
+	// Killers come from other positions, so they might not be legal here. Captures have already been tried
+	private boolean isUsableKiller(final int killer) {
+		return killer != PackedMove.NO_MOVE && killer != this.hashMove && !PackedMove.isCapture(killer) &&
+				!PackedMove.isPromotion(killer) && this.board.isLegalMove(killer);
+	}
+
+	/* Moves the best scoring move left to the front of those not yet tried. Usually only a few moves are tried before
+	 * a cutoff, so picking the best each time costs less than sorting them all up front */
+	private int pickBest() {
+		int best = this.nextMove;
+		for(int i = this.nextMove + 1; i < this.numMoves; i++) {
+			if(this.scores[i] > this.scores[best]) {
+				best = i;
+			}
+		}
+		final int move = this.moves[best];
+		this.moves[best] = this.moves[this.nextMove];
+		this.scores[best] = this.scores[this.nextMove];
+		this.nextMove++;
+		return move;
+	}
+}
@@ -1,7 +1,9 @@
 package ai;
 
 import board_construction.Board;
+import board_construction.SearchBoard;
 import chess_pieces.ChessPiece;
+import chess_pieces.PieceColour;
 import player.Player;
 
 public class StandardBoardEvaluator implements BoardEvaluator {
@@ -10,6 +12,11 @@ public class StandardBoardEvaluator implements BoardEvaluator {
 	private static final int CHECK_MATE_BONUS = 5000;
 	private static final int DEPTH_BONUS = 100;
 	private static final int CASTLE_BONUS = 60;
+	/* A checkmate found with depth still to search scores this much for each ply of it, which the transposition table
+	 * has to take off when storing the score so it can be used again at another depth. One found at depth 0 scores
+	 * the plain bonus */
+	static final int CHECK_MATE_SCORE_PER_DEPTH = CHECK_MATE_BONUS * DEPTH_BONUS;
+	static final int HORIZON_CHECK_MATE_SCORE = CHECK_MATE_BONUS;
 	
 	@Override public int evaluate(final Board board, final int depth) {
 		/* I want to get the score from white and substract it from the score of black. If white has an advantage then 
@@ -18,6 +25,19 @@ public class StandardBoardEvaluator implements BoardEvaluator {
 		return val;
 	}
 	
+	/* The search works on a SearchBoard, so here the same terms are scored from the mutable board rather than from
+	 * the Player objects of an immutable Board */
+	@Override public int evaluate(final SearchBoard board, final int depth) {
+		return scoreColour(board, PieceColour.WHITE, depth) - scoreColour(board, PieceColour.BLACK, depth);
+	}
+	
+	private int scoreColour(final SearchBoard board, final PieceColour colour, final int depth) {
+		return board.getPieceValue(colour) + 
+				board.countMoves(colour) + 
+				(board.isInCheck(colour.getOpponent()) ? CHECK_BONUS : 0) + 
+				(board.isInCheckMate(colour.getOpponent()) ? CHECK_MATE_BONUS * depthBonus(depth) : 0);
+	}
+	
 	private int scorePlayer(final Board board, final Player player, final int depth) {
 		return pieceValue(player) + 
 				mobility(player) + 
@@ -0,0 +1,180 @@
+package ai;
+
+import java.util.Arrays;
+
+import chess_pieces.PackedMove;
+
+/* Remembers what the search found out about the positions it has already searched, keyed on their Zobrist keys. The
+ * same position is often reached by more than one order of moves (a transposition), and with an entry for it the
+ * search can either use the score straight away or, when the entry wasn't searched deeply enough or its score is
+ * only a bound that doesn't settle anything, at least try its best move first.
+ *
+ * The table is a fixed number of buckets held in a long[], so it's given a size in megabytes rather than a number of
+ * entries, and nothing is allocated once it's made. Each entry is two longs: the data (score, best move, depth, bound
+ * and the search it came from, packed together) and the key xor'ed with the data. Like the perft hash, this lets the
+ * table be shared by several searching threads without any locking - if two threads write an entry at once a reader
+ * might see one thread's data with the other's check, but then the check doesn't give back the key and the torn
+ * entry is simply treated as missing.
+ *
+ * Each bucket has two entries. The first keeps the deepest search of the positions which land in the bucket, as it
+ * saved the most work, unless it's left over from an earlier search. The second is always replaced, so the positions
+ * being searched right now still get remembered.
+ *
+ * The evaluator scores a checkmate by the depth left to search when it's reached, so a mate score only means something
+ * at the depth it was searched with. The same position found again with another depth left, whether at another ply or
+ * in the next search of iterative deepening, would get a mate the wrong number of moves away. So mate scores are
+ * stored relative to the position's own depth (as if it were searched with DEPTH_MASK left), and turned back into
+ * scores for the depth of the search probing them. */
+public class TranspositionTable {
+
+	public static final int DEFAULT_SIZE_IN_MB = 16;
+
+	// Returned by probe() when there's no entry for the position. Real entries always have a bound, so are never 0
+	public static final long MISSING = 0;
+
+	// What the score of an entry means: it's either the value of the position, or the value is at least/most the score
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int UPPER_BOUND = 3;
+
+	// The data of an entry: score in bits 0-31, best move in bits 32-47, generation 48-53, depth 54-61, bound 62-63
+	private static final int MOVE_SHIFT = 32;
+	private static final int GENERATION_SHIFT = 48;
+	private static final int DEPTH_SHIFT = 54;
+	private static final int BOUND_SHIFT = 62;
+	private static final int GENERATION_MASK = 63;
+	private static final int DEPTH_MASK = 255;
+
+	private static final int MATE_SCORE_PER_DEPTH = StandardBoardEvaluator.CHECK_MATE_SCORE_PER_DEPTH;
+	// Everything but a mate scores well within this, and a mate with depth left to search well outside it
+	private static final int MATE_THRESHOLD = MATE_SCORE_PER_DEPTH / 2;
+
+	private static final int LONGS_PER_ENTRY = 2;
+	private static final int LONGS_PER_BUCKET = 2 * LONGS_PER_ENTRY;
+
+	private final long[] entries;
+	private final int bucketMask;
+	// Counts the searches, so entries from earlier ones can be told apart and replaced
+	private int generation;
+
+	public TranspositionTable(final int sizeInMB) {
+		if(sizeInMB < 1) {
+			throw new IllegalArgumentException("A transposition table needs at least 1 MB");
+		}
+		// As many buckets as fit, rounded down to a power of 2 so a key is turned into a bucket with a mask
+		final long buckets = Long.highestOneBit(((long) sizeInMB << 20) / (LONGS_PER_BUCKET * Long.BYTES));
+		final int numBuckets = (int) Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / LONGS_PER_BUCKET));
+		this.entries = new long[numBuckets * LONGS_PER_BUCKET];
+		this.bucketMask = numBuckets - 1;
+	}
+
+	// To be called at the start of every search, so what's left from the searches before can be replaced
+	public void newSearch() {
+		this.generation = (this.generation + 1) & GENERATION_MASK;
+	}
+
+	public void clear() {
+		Arrays.fill(this.entries, 0);
+	}
+
+	// The data of the entry for the position, to be read with the static getters below, or MISSING
+	public long probe(final long zobristKey) {
+		final int bucket = bucketIndex(zobristKey);
+		for(int i = bucket; i < bucket + LONGS_PER_BUCKET; i += LONGS_PER_ENTRY) {
+			final long data = this.entries[i + 1];
+			if((this.entries[i] ^ data) == zobristKey && data != MISSING) {
+				return data;
+			}
+		}
+		return MISSING;
+	}
+
+	// The best move may be NO_MOVE, when no move turned out better than the bound
+	public void store(final long zobristKey, final int score, final int bestMove, final int depth, final int bound) {
+		final int bucket = bucketIndex(zobristKey);
+		final long deepData = this.entries[bucket + 1];
+		final boolean isSamePosition = (this.entries[bucket] ^ deepData) == zobristKey;
+		final int entry = isSamePosition || depth >= getDepth(deepData) || getGeneration(deepData) != this.generation ?
+				bucket : bucket + LONGS_PER_ENTRY;
+		final long data = (scoreToTable(score, depth) & 0xFFFFFFFFL) | ((long) (bestMove & 0xFFFF) << MOVE_SHIFT) |
+				((long) this.generation << GENERATION_SHIFT) | ((long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT) |
+				((long) bound << BOUND_SHIFT);
+		this.entries[entry + 1] = data;
+		this.entries[entry] = zobristKey ^ data;
+	}
+
+	// The score as it's stored, which for a mate is relative to the position's depth - see getScore(data, depth)
+	public static int getScore(final long data) {
+		return (int) data;
+	}
+
+	// The score for a search of the position with the given depth left
+	public static int getScore(final long data, final int depth) {
+		return scoreFromTable(getScore(data), depth);
+	}
+
+	public static int getBestMove(final long data) {
+		return data == MISSING ? PackedMove.NO_MOVE : (int) (data >>> MOVE_SHIFT) & 0xFFFF;
+	}
+
+	public static int getDepth(final long data) {
+		return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+	}
+
+	public static int getBound(final long data) {
+		return (int) (data >>> BOUND_SHIFT);
+	}
+
+	/* Whether the entry settles the value of a position needing a search of the given depth, with the given bounds -
+	 * it has to be from a search at least as deep, and its score has to be exact or a bound that's outside them */
+	public static boolean isCutoff(final long data, final int depth, final int alpha, final int beta) {
+		if(data == MISSING || getDepth(data) < depth) {
+			return false;
+		}
+		final int score = getScore(data, depth);
+		switch(getBound(data)) {
+			case EXACT:
+				return true;
+			case LOWER_BOUND:
+				return score >= beta;
+			case UPPER_BOUND:
+				return score <= alpha;
+			default:
+				return false;
+		}
+	}
+
+	// Mates are stored as if the position had DEPTH_MASK left to search, so only how far below it they are counts
+	private static int scoreToTable(final int score, final int depth) {
+		final int shift = (DEPTH_MASK - Math.min(depth, DEPTH_MASK)) * MATE_SCORE_PER_DEPTH;
+		if(score >= MATE_THRESHOLD) {
+			return score + shift;
+		} else if(score <= -MATE_THRESHOLD) {
+			return score - shift;
+		}
+		return score;
+	}
+
+	/* The other way round. An entry searched deeper than the probing search may hold a mate too far down for it, which
+	 * is scored as a mate found at depth 0 would be */
+	private static int scoreFromTable(final int score, final int depth) {
+		if(score > -MATE_THRESHOLD && score < MATE_THRESHOLD) {
+			return score;
+		}
+		final int sign = score > 0 ? 1 : -1;
+		final int storedScore = sign * score;
+		final int storedMateDepth = (storedScore + MATE_THRESHOLD) / MATE_SCORE_PER_DEPTH;
+		final int rest = storedScore - storedMateDepth * MATE_SCORE_PER_DEPTH;
+		final int mateDepth = storedMateDepth - (DEPTH_MASK - Math.min(depth, DEPTH_MASK));
+		return sign * ((mateDepth >= 1 ? mateDepth * MATE_SCORE_PER_DEPTH :
+				StandardBoardEvaluator.HORIZON_CHECK_MATE_SCORE) + rest);
+	}
+
+	private static int getGeneration(final long data) {
+		return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+	}
+
+	private int bucketIndex(final long zobristKey) {
+		return ((int) zobristKey & this.bucketMask) * LONGS_PER_BUCKET;
+	}
+}
@@ -0,0 +1,257 @@
+package board_construction;
+
+import chess_pieces.PieceColour;
+
+/* Precomputed attack tables used for move generation. For the knight and king, which always attack the same tiles
+ * from a given tile whatever else is on the board, the table simply holds the attack set for each tile. Pawns are 
+ * the same except their captures depend on colour, so they get a table per colour.
+ * 
+ * For the sliding pieces (rook, bishop and queen) I use "magic bitboards": for each tile we take the tiles which 
+ * could block the piece (its relevant occupancy mask), multiply the blockers actually on the board by a magic number
+ * and shift, which gives a unique index into a table holding the full attack set for that arrangement of blockers. So
+ * the whole set of tiles a slider attacks comes from a single table load, instead of walking each ray tile by tile.
+ *
+ * A good explanation of the technique can be found here: https://www.chessprogramming.org/Magic_Bitboards
+ *
+ * The magic numbers were found by trial with sparse random numbers, which takes the best part of a second, so they're
+ * written out below and only the tables are filled in when the class is loaded. run_tests.MagicFinder searches for
+ * them again (with the same fixed seed, so it finds the same ones) and prints them. Like BoardUtils, this class is not
+ * to be instantiated. */
+public class AttackTables {
+
+	private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+	private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+	private static final int[][] KNIGHT_OFFSETS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+	private static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+	// white pawns move up the board (towards row 0), black pawns down it
+	private static final int[][] WHITE_PAWN_CAPTURE_OFFSETS = {{-1, -1}, {-1, 1}};
+	private static final int[][] BLACK_PAWN_CAPTURE_OFFSETS = {{1, -1}, {1, 1}};
+
+	private static final int[][] QUEEN_DIRECTIONS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+	private static final long[] KNIGHT_ATTACKS = new long[BoardUtils.NUM_TILES];
+	private static final long[] KING_ATTACKS = new long[BoardUtils.NUM_TILES];
+	private static final long[][] PAWN_ATTACKS = new long[2][BoardUtils.NUM_TILES];
+
+	private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_TILES];
+	private static final long[] ROOK_MAGICS = {
+		0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+		0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+		0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8611001004200900L,
+		0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+		0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+		0x0001818014000800L, 0xA002010100080400L, 0x0008040088020130L, 0x0001020004048845L,
+		0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+		0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+		0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+		0x4540040080800800L, 0x0000800400800200L, 0x9281800100808200L, 0x8004048102000854L,
+		0x4420802040008006L, 0x0880500020004002L, 0x0801200241050010L, 0x8400080010008080L,
+		0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+		0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+		0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+		0x8044110480002441L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+		0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+	};
+	private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_TILES];
+	private static final long[][] ROOK_ATTACKS = new long[BoardUtils.NUM_TILES][];
+
+	private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_TILES];
+	private static final long[] BISHOP_MAGICS = {
+		0x1010220204082A00L, 0x80E0020202002804L, 0x2008480104200020L, 0x000220920280002DL,
+		0x32040421000B0284L, 0x1002080404000400L, 0x0004160892080040L, 0x2203024206204201L,
+		0x0002404264010200L, 0x1120908408428124L, 0xB100424403002280L, 0x240008060440C288L,
+		0x2040040420490400L, 0x0100620210040022L, 0x0400084104202028L, 0x0010050080908820L,
+		0x0C90A04490824802L, 0x000200A008210130L, 0x0C08001000204010L, 0x0008000186014480L,
+		0x0601044820080021L, 0x0002000101013100L, 0x1400A08108080204L, 0x0250401104485410L,
+		0x4820240810142843L, 0x0009142A20182200L, 0x0848140048440020L, 0x2020120000400440L,
+		0x0108840200802003L, 0x0009070082009492L, 0x020C0C0038424245L, 0xCA44005808210410L,
+		0x8011212000500404L, 0x2028840510101008L, 0x0004042A00041400L, 0x0624020080980080L,
+		0x1820410040840040L, 0x2201004202050100L, 0x402A088A24040224L, 0x0242061040002400L,
+		0x90020202400821A0L, 0x00C9009004E01002L, 0x58C2060202023100L, 0x0000012214040800L,
+		0x0210846810100200L, 0x0004208081010200L, 0x01A4108404442100L, 0x8054082C80280106L,
+		0x0004144904104208L, 0x00324C0A11104000L, 0x1000020231040100L, 0x2080001042020004L,
+		0x0544021020288104L, 0x1103501408083020L, 0x4010451004960002L, 0x003010091C44902CL,
+		0x0102402884202000L, 0x0480804C00841086L, 0x04602C8602210400L, 0x0000004000420200L,
+		0x0040000020442C18L, 0x4483804089094100L, 0x80000B0248020400L, 0x0045010808008680L
+	};
+	private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_TILES];
+	private static final long[][] BISHOP_ATTACKS = new long[BoardUtils.NUM_TILES][];
+
+	/* For each pair of tiles on a shared row, column or diagonal, the tiles strictly between them and the whole line
+	 * running through them (both are empty for tiles which don't line up). Used to work out pins and checks. */
+	private static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+	private static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+	static {
+		for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+			KNIGHT_ATTACKS[tile] = leaperAttacks(tile, KNIGHT_OFFSETS);
+			KING_ATTACKS[tile] = leaperAttacks(tile, KING_OFFSETS);
+			PAWN_ATTACKS[0][tile] = leaperAttacks(tile, WHITE_PAWN_CAPTURE_OFFSETS);
+			PAWN_ATTACKS[1][tile] = leaperAttacks(tile, BLACK_PAWN_CAPTURE_OFFSETS);
+			initialiseMagic(tile, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS[tile], ROOK_SHIFTS, ROOK_ATTACKS);
+			initialiseMagic(tile, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS[tile], BISHOP_SHIFTS, BISHOP_ATTACKS);
+			initialiseLines(tile);
+		}
+	}
+
+	private AttackTables() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static long knightAttacks(final int tileCoordinate) {
+		return KNIGHT_ATTACKS[tileCoordinate];
+	}
+
+	public static long kingAttacks(final int tileCoordinate) {
+		return KING_ATTACKS[tileCoordinate];
+	}
+
+	// The two tiles diagonally in front of a pawn of the given colour - only those on the board are included
+	public static long pawnAttacks(final PieceColour pieceColour, final int tileCoordinate) {
+		return PAWN_ATTACKS[BitBoards.colourIndex(pieceColour)][tileCoordinate];
+	}
+
+	// As above, but taking the colour index used by the bitboard code (see BitBoards.colourIndex)
+	public static long pawnAttacks(final int colourIndex, final int tileCoordinate) {
+		return PAWN_ATTACKS[colourIndex][tileCoordinate];
+	}
+
+	public static long rookAttacks(final int tileCoordinate, final long occupancy) {
+		return ROOK_ATTACKS[tileCoordinate][(int) (((occupancy & ROOK_MASKS[tileCoordinate]) *
+				ROOK_MAGICS[tileCoordinate]) >>> ROOK_SHIFTS[tileCoordinate])];
+	}
+
+	public static long bishopAttacks(final int tileCoordinate, final long occupancy) {
+		return BISHOP_ATTACKS[tileCoordinate][(int) (((occupancy & BISHOP_MASKS[tileCoordinate]) *
+				BISHOP_MAGICS[tileCoordinate]) >>> BISHOP_SHIFTS[tileCoordinate])];
+	}
+
+	public static long queenAttacks(final int tileCoordinate, final long occupancy) {
+		return rookAttacks(tileCoordinate, occupancy) | bishopAttacks(tileCoordinate, occupancy);
+	}
+
+
+	public static long between(final int firstTile, final int secondTile) {
+		return BETWEEN[firstTile][secondTile];
+	}
+
+	public static long line(final int firstTile, final int secondTile) {
+		return LINE[firstTile][secondTile];
+	}
+
+	/* All the pieces of the given colour attacking the tile. Rather than looking at that colour's moves, we look 
+	 * outwards from the tile: if a knight on the tile would attack one of their knights, their knight attacks the 
+	 * tile, and likewise for the other pieces (for pawns we use the other colour's pawn attacks, as pawns capture
+	 * in opposite directions). The pieces are in the BitBoards.pieceIndex layout used by Board and SearchBoard. */
+	public static long attackersOf(final int tile, final int byColour, final long occupancy, final long[] pieceBitBoards) {
+		final int base = byColour * 6;
+		final long queens = pieceBitBoards[base + 4];
+		return (PAWN_ATTACKS[byColour ^ 1][tile] & pieceBitBoards[base]) |
+				(KNIGHT_ATTACKS[tile] & pieceBitBoards[base + 1]) |
+				(bishopAttacks(tile, occupancy) & (pieceBitBoards[base + 2] | queens)) |
+				(rookAttacks(tile, occupancy) & (pieceBitBoards[base + 3] | queens)) |
+				(KING_ATTACKS[tile] & pieceBitBoards[base + 5]);
+	}
+
+	public static boolean isTileAttacked(final int tile, final int byColour, final long occupancy, 
+			final long[] pieceBitBoards) {
+		return attackersOf(tile, byColour, occupancy, pieceBitBoards) != 0;
+	}
+
+
+	/* Applies each (row, column) offset to the tile, keeping those which land on the board. Working in rows and 
+	 * columns means an offset can never wrap round the side of the board, so no column exclusions are needed. */
+	private static long leaperAttacks(final int tile, final int[][] offsets) {
+		long attacks = 0L;
+		for(final int[] offset : offsets) {
+			final int row = tile / BoardUtils.TILES_IN_ROW + offset[0];
+			final int column = tile % BoardUtils.TILES_IN_ROW + offset[1];
+			if(isOnBoard(row, column)) {
+				attacks |= BitBoards.tileMask(row * BoardUtils.TILES_IN_ROW + column);
+			}
+		}
+		return attacks;
+	}
+
+	// Walks out from the tile in each direction, filling in the BETWEEN and LINE entries for each tile reached
+	private static void initialiseLines(final int tile) {
+		for(final int[] direction : QUEEN_DIRECTIONS) {
+			final long line = slidingAttacks(tile, 0L, new int[][] {direction}) | 
+					slidingAttacks(tile, 0L, new int[][] {{-direction[0], -direction[1]}}) | BitBoards.tileMask(tile);
+			long between = 0L;
+			int row = tile / BoardUtils.TILES_IN_ROW + direction[0];
+			int column = tile % BoardUtils.TILES_IN_ROW + direction[1];
+			while(isOnBoard(row, column)) {
+				final int otherTile = row * BoardUtils.TILES_IN_ROW + column;
+				BETWEEN[tile][otherTile] = between;
+				LINE[tile][otherTile] = line;
+				between |= BitBoards.tileMask(otherTile);
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+	}
+
+	/* Fills in the tile's table using its magic number, which maps every possible arrangement of blockers to a table
+	 * entry holding the right attack set. Different arrangements may share an entry, but only if their attacks agree */
+	private static void initialiseMagic(final int tile, final int[][] directions, final long[] masks, final long magic,
+			final int[] shifts, final long[][] attackTables) {
+		final long mask = relevantOccupancy(tile, directions);
+		final int bits = BitBoards.countTiles(mask);
+		final long[] table = new long[1 << bits];
+		final boolean[] isFilled = new boolean[table.length];
+		long subset = 0L;
+		for(int i = 0; i < table.length; i++) {
+			final long attacks = slidingAttacks(tile, subset, directions);
+			final int index = (int) ((subset * magic) >>> (64 - bits));
+			if(isFilled[index] && table[index] != attacks) {
+				throw new IllegalStateException("The magic number for tile " + tile + " doesn't work");
+			}
+			isFilled[index] = true;
+			table[index] = attacks;
+			subset = (subset - mask) & mask;
+		}
+		masks[tile] = mask;
+		shifts[tile] = 64 - bits;
+		attackTables[tile] = table;
+	}
+
+	/* The tiles along each ray which could block the slider. The last tile on each ray is left out, as a piece there
+	 * can't block anything further along - this keeps the tables as small as possible. */
+	private static long relevantOccupancy(final int tile, final int[][] directions) {
+		long mask = 0L;
+		for(final int[] direction : directions) {
+			int row = tile / BoardUtils.TILES_IN_ROW + direction[0];
+			int column = tile % BoardUtils.TILES_IN_ROW + direction[1];
+			while(isOnBoard(row + direction[0], column + direction[1])) {
+				mask |= BitBoards.tileMask(row * BoardUtils.TILES_IN_ROW + column);
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	// Walks each ray from the tile, stopping at (and including) the first blocker - only used to fill the tables
+	private static long slidingAttacks(final int tile, final long occupancy, final int[][] directions) {
+		long attacks = 0L;
+		for(final int[] direction : directions) {
+			int row = tile / BoardUtils.TILES_IN_ROW + direction[0];
+			int column = tile % BoardUtils.TILES_IN_ROW + direction[1];
+			while(isOnBoard(row, column)) {
+				final long tileMask = BitBoards.tileMask(row * BoardUtils.TILES_IN_ROW + column);
+				attacks |= tileMask;
+				if((occupancy & tileMask) != 0) {
+					break;
+				}
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	private static boolean isOnBoard(final int row, final int column) {
+		return row >= 0 && row < BoardUtils.TILES_IN_COL && column >= 0 && column < BoardUtils.TILES_IN_ROW;
+	}
+}
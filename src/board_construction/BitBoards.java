@@ -0,0 +1,70 @@
+package board_construction;
+
+import chess_pieces.ChessPiece.PieceType;
+import chess_pieces.PieceColour;
+
+/* Convenience class for working with bitboards. A bitboard is a single 64 bit long in which bit i represents tile i
+ * of the board (so bit 0 is a8 and bit 63 is h1, matching the tile coordinates used everywhere else). Asking
+ * questions of a whole set of tiles then becomes a couple of bitwise operations rather than a walk over 64 tiles.
+ * Like BoardUtils, this class is not to be instantiated. */
+public class BitBoards {
+
+	public static final long EMPTY = 0L;
+
+	/* Masks of whole rows, named to match the rank lists in BoardUtils (so FIRST_RANK is tiles 0-7, the row black's
+	 * pieces start on, and EIGHTH_RANK is tiles 56-63) */
+	public static final long FIRST_RANK = 0x00000000000000FFL;
+	public static final long SECOND_RANK = 0x000000000000FF00L;
+	public static final long SEVENTH_RANK = 0x00FF000000000000L;
+	public static final long EIGHTH_RANK = 0xFF00000000000000L;
+
+	// one bitboard for each of the 6 piece types in each of the 2 colours
+	public static final int NUM_PIECE_BITBOARDS = 12;
+
+	private BitBoards() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static long tileMask(final int tileCoordinate) {
+		return 1L << tileCoordinate;
+	}
+
+	public static boolean isTileSet(final long bitBoard, final int tileCoordinate) {
+		return (bitBoard & (1L << tileCoordinate)) != 0;
+	}
+
+	/* The bitboards of a board are kept in a single array, white pieces first in the order the piece types are
+	 * declared (pawn, knight, bishop, rook, queen, king), followed by the black pieces in the same order. */
+	public static int pieceIndex(final PieceType pieceType, final PieceColour pieceColour) {
+		return colourIndex(pieceColour) * 6 + pieceType.ordinal();
+	}
+
+	public static int colourIndex(final PieceColour pieceColour) {
+		return pieceColour.isWhite() ? 0 : 1;
+	}
+
+	// Returns the lowest set tile of the bitboard, used together with popLowestTile to loop over the set tiles
+	public static int lowestTile(final long bitBoard) {
+		return Long.numberOfTrailingZeros(bitBoard);
+	}
+
+	public static long popLowestTile(final long bitBoard) {
+		return bitBoard & (bitBoard - 1);
+	}
+
+	public static int countTiles(final long bitBoard) {
+		return Long.bitCount(bitBoard);
+	}
+
+	/* Handy for debugging - prints the bitboard out as a grid in the same layout as Board.toString() */
+	public static String toString(final long bitBoard) {
+		final StringBuilder builder = new StringBuilder();
+		for(int i=0; i < BoardUtils.NUM_TILES; i++) {
+			builder.append(String.format("%3s", isTileSet(bitBoard, i) ? "1" : "-"));
+			if((i+1) % BoardUtils.TILES_IN_ROW == 0) {
+				builder.append("\n");
+			}
+		}
+		return builder.toString();
+	}
+}
@@ -1,7 +1,6 @@
 package board_construction;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -9,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 
 import chess_pieces.*;
+import chess_pieces.ChessPiece.PieceType;
 import player.BlackPlayer;
 import player.Player;
 import player.WhitePlayer;
@@ -16,35 +16,75 @@ import player.WhitePlayer;
 
 public class Board {
 	
-	private final List<ChessTile> chessBoard;
+	public static final int NO_EN_PASSANT_TILE = -1;
+	private static final int UNKNOWN_CASTLING_RIGHTS = -1;
+	
+	/* The position is held as twelve bitboards, one for each piece type of each colour (see BitBoards.pieceIndex),
+	 * along with aggregate masks for each colour and for the whole board. Alongside this I keep the piece on each 
+	 * tile so that getTile() and the piece collections can still hand out the ChessPiece objects the rest of the 
+	 * game works with. The pieces are stored a row at a time, so that a board derived from this one by a move 
+	 * only needs to copy the rows the move touches and can share the rest (see Derivation below). */
+	private final long[] pieceBitBoards;
+	private final long whiteOccupancy;
+	private final long blackOccupancy;
+	private final long allOccupancy;
+	private final ChessPiece[][] boardConfig;
+	
 	private final Collection<ChessPiece> whitePieces;
 	private final Collection<ChessPiece> blackPieces;
 	
 	private final WhitePlayer whitePlayer;
 	private final BlackPlayer blackPlayer;
 	private final Player currentPlayer;
-	private final Pawn enPassantPawn;
 	
+	/* The rest of the game state is kept as plain numbers: the castling rights still available (see CastlingRights),
+	 * the tile a pawn has just jumped over and may be taken on en passant (or -1), the number of moves since a pawn 
+	 * last moved or a piece was taken, for the fifty move rule, and the number of the move being played - which 
+	 * starts at 1 and goes up after each of black's moves. */
+	private final int castlingRights;
+	private final int enPassantTile;
+	private final int halfmoveClock;
+	private final int fullmoveNumber;
 	
-	private Board(Builder builder) {
-		this.chessBoard = buildGameBoard(builder);
-		this.whitePieces = calculateActivePieces(this.chessBoard, PieceColour.WHITE);
-		this.blackPieces = calculateActivePieces(this.chessBoard, PieceColour.BLACK);
-		this.enPassantPawn = builder.enPassantPawn;
-		
-		final Collection<Move> whiteAllowedMoves = determineAllowedMoves(this.whitePieces);
-		final Collection<Move> blackAllowedMoves = determineAllowedMoves(this.blackPieces);
+	/* The Zobrist key of the position (see Zobrist). A derived board works its key out from its parent's, changing 
+	 * only the parts the move touched, so it costs next to nothing to keep. */
+	private final long zobristKey;
+	
+	/* The moves of each side's pieces are only worked out the first time they are asked for, and then kept. A lot of
+	 * boards (for example those only used to check a move doesn't leave the king in check) only ever need one side's
+	 * moves, or none at all. These are volatile as a board can be shared between the gui and the ai thread. */
+	private volatile Collection<Move> whitePieceMoves;
+	private volatile Collection<Move> blackPieceMoves;
+	private volatile KingSafety whiteKingSafety;
+	private volatile KingSafety blackKingSafety;
+	
+	
+	private Board(final ChessPiece[][] boardConfig, final long[] pieceBitBoards, final Collection<ChessPiece> whitePieces, 
+			final Collection<ChessPiece> blackPieces, final PieceColour nextToMove, final int castlingRights, 
+			final int enPassantTile, final int halfmoveClock, final int fullmoveNumber, final long zobristKey) {
+		this.boardConfig = boardConfig;
+		this.pieceBitBoards = pieceBitBoards;
+		this.whiteOccupancy = calculateOccupancy(this.pieceBitBoards, PieceColour.WHITE);
+		this.blackOccupancy = calculateOccupancy(this.pieceBitBoards, PieceColour.BLACK);
+		this.allOccupancy = this.whiteOccupancy | this.blackOccupancy;
+		this.whitePieces = whitePieces;
+		this.blackPieces = blackPieces;
+		this.castlingRights = castlingRights;
+		this.enPassantTile = enPassantTile;
+		this.halfmoveClock = halfmoveClock;
+		this.fullmoveNumber = fullmoveNumber;
+		this.zobristKey = zobristKey;
 		
-		this.whitePlayer = new WhitePlayer(this, whiteAllowedMoves, blackAllowedMoves);
-		this.blackPlayer = new BlackPlayer(this, whiteAllowedMoves, blackAllowedMoves);
-		this.currentPlayer = builder.nextToMove.choosePlayer(this.whitePlayer, this.blackPlayer);
+		this.whitePlayer = new WhitePlayer(this);
+		this.blackPlayer = new BlackPlayer(this);
+		this.currentPlayer = nextToMove.choosePlayer(this.whitePlayer, this.blackPlayer);
 	}
 	
 	/*The override of toString method is used to print the board in a ascii text way */
 		@Override public String toString() {
 		final StringBuilder builder = new StringBuilder();
 		for(int i=0; i < BoardUtils.NUM_TILES; i++) {
-			final String tileText = this.chessBoard.get(i).toString();
+			final String tileText = getTile(i).toString();
 			builder.append(String.format("%3s", tileText));
 			if((i+1) % BoardUtils.TILES_IN_ROW == 0) {
 				builder.append("\n");
@@ -52,6 +92,38 @@ public class Board {
 		}
 		return builder.toString();
 	}
+	
+	/* Two boards are equal when they hold the same position: the same pieces on the same tiles, the same side to 
+	 * move, castling rights and en passant tile (the move counters don't matter). The Zobrist keys are compared 
+	 * first, so boards which differ almost never get as far as comparing tiles. */
+	@Override public boolean equals(final Object other) {
+		if(this == other) {
+			return true;
+		}
+		if(!(other instanceof Board)) {
+			return false;
+		}
+		final Board otherBoard = (Board) other;
+		if(this.zobristKey != otherBoard.zobristKey || this.castlingRights != otherBoard.castlingRights ||
+				this.enPassantTile != otherBoard.enPassantTile || 
+				this.currentPlayer.getColour() != otherBoard.currentPlayer.getColour()) {
+			return false;
+		}
+		for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+			final ChessPiece piece = getPiece(i);
+			final ChessPiece otherPiece = otherBoard.getPiece(i);
+			if(piece != otherPiece && (piece == null || otherPiece == null || 
+					piece.getPieceType() != otherPiece.getPieceType() || 
+					piece.getPieceColour() != otherPiece.getPieceColour())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override public int hashCode() {
+		return (int) (this.zobristKey ^ (this.zobristKey >>> 32));
+	}
 		
 		
 		public Player whitePlayer() {
@@ -80,6 +152,44 @@ public class Board {
 		    return Collections.unmodifiableList(allAllowedMoves);
 		}
 		
+	/* The moves of all the colour's pieces on this board, not including castling (which the Player adds, see
+	 * Player.getAllowedMoves()). These are calculated on first request and then cached. */
+	public Collection<Move> getPieceMoves(final PieceColour colour) {
+		if(colour.isWhite()) {
+			Collection<Move> moves = this.whitePieceMoves;
+			if(moves == null) {
+				moves = determineAllowedMoves(this.whitePieces);
+				this.whitePieceMoves = moves;
+			}
+			return moves;
+		}
+		Collection<Move> moves = this.blackPieceMoves;
+		if(moves == null) {
+			moves = determineAllowedMoves(this.blackPieces);
+			this.blackPieceMoves = moves;
+		}
+		return moves;
+	}
+		
+	/* The checks and pins against the colour's king, used to tell which of its moves are legal without trying them 
+	 * out on a new board. Also calculated on first request and then cached. */
+	public KingSafety getKingSafety(final PieceColour colour) {
+		if(colour.isWhite()) {
+			KingSafety kingSafety = this.whiteKingSafety;
+			if(kingSafety == null) {
+				kingSafety = new KingSafety(this.pieceBitBoards, colour);
+				this.whiteKingSafety = kingSafety;
+			}
+			return kingSafety;
+		}
+		KingSafety kingSafety = this.blackKingSafety;
+		if(kingSafety == null) {
+			kingSafety = new KingSafety(this.pieceBitBoards, colour);
+			this.blackKingSafety = kingSafety;
+		}
+		return kingSafety;
+	}
+		
 	/* Each piece has it's own determineAllowedMoves class. We loop through the pieces and call this method, 
 	 * collecting the results, to give as all allowed moves on the current board */
 	private Collection<Move> determineAllowedMoves(final Collection<ChessPiece> pieces) {
@@ -87,69 +197,116 @@ public class Board {
 		for(final ChessPiece piece : pieces) {
 			allowedMoves.addAll(piece.determineAllowedMoves(this));
 		}
-		return allowedMoves;
+		return Collections.unmodifiableList(allowedMoves);
 	}
 	
-	private Collection<ChessPiece> calculateActivePieces(List<ChessTile> chessBoard, PieceColour colour) {
-		final List<ChessPiece> activePieces = new ArrayList<>();
-		for(final ChessTile tile : chessBoard) {
-			if(tile.isTileOccupied()) {
-				final ChessPiece piece = tile.getPiece();
-				if(piece.getPieceColour() == colour) {
-					activePieces.add(piece);
-				}
-			}
+	/* Rather than scanning all 64 tiles, we only visit the tiles set in the colour's occupancy mask. Tiles are
+	 * visited in increasing order, so the pieces come out in the same order as they did from the old tile scan */
+	private static Collection<ChessPiece> calculateActivePieces(final ChessPiece[][] boardConfig, 
+			final long[] pieceBitBoards, final PieceColour colour) {
+		final long occupancy = calculateOccupancy(pieceBitBoards, colour);
+		final List<ChessPiece> activePieces = new ArrayList<>(BitBoards.countTiles(occupancy));
+		for(long tiles = occupancy; tiles != BitBoards.EMPTY; tiles = BitBoards.popLowestTile(tiles)) {
+			final int tile = BitBoards.lowestTile(tiles);
+			activePieces.add(boardConfig[tile / BoardUtils.TILES_IN_ROW][tile % BoardUtils.TILES_IN_ROW]);
 		}
 		return Collections.unmodifiableList(activePieces);
 	}
 	
-
+	private static long calculateOccupancy(final long[] pieceBitBoards, final PieceColour colour) {
+		final int firstIndex = BitBoards.colourIndex(colour) * 6;
+		long occupancy = BitBoards.EMPTY;
+		for(int i = firstIndex; i < firstIndex + 6; i++) {
+			occupancy |= pieceBitBoards[i];
+		}
+		return occupancy;
+	}
+	
+	/* getTile() is now an adapter over the piece array - occupied tiles are created on request and empty tiles 
+	 * come from the cache of empty tiles in ChessTile */
 	public ChessTile getTile(final int tileCoordinate) {
-		return chessBoard.get(tileCoordinate);
+		return ChessTile.createTile(tileCoordinate, getPiece(tileCoordinate));
+	}
+	
+	public ChessPiece getPiece(final int tileCoordinate) {
+		return this.boardConfig[tileCoordinate / BoardUtils.TILES_IN_ROW][tileCoordinate % BoardUtils.TILES_IN_ROW];
+	}
+	
+	public boolean isTileOccupied(final int tileCoordinate) {
+		return BitBoards.isTileSet(this.allOccupancy, tileCoordinate);
+	}
+	
+	public long getPieceBitBoard(final ChessPiece.PieceType pieceType, final PieceColour pieceColour) {
+		return this.pieceBitBoards[BitBoards.pieceIndex(pieceType, pieceColour)];
+	}
+	
+	public long getOccupancy(final PieceColour pieceColour) {
+		return pieceColour.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+	}
+	
+	public long getAllOccupancy() {
+		return this.allOccupancy;
+	}
+	
+	/* Is the tile attacked by any piece of the given colour? This is answered straight from where the pieces are 
+	 * (see AttackTables.isTileAttacked), so it doesn't need either side's moves to have been generated */
+	public boolean isTileAttacked(final int tileCoordinate, final PieceColour byColour) {
+		return AttackTables.isTileAttacked(tileCoordinate, BitBoards.colourIndex(byColour), this.allOccupancy, 
+				this.pieceBitBoards);
 	}
 	
 	
-	/* This method is used to populate a list of tiles from 0->63, representing the chess board.  */
-	private static List<ChessTile> buildGameBoard(final Builder builder) {
-		final ChessTile[] tiles = new ChessTile[BoardUtils.NUM_TILES];
-		for(int i=0; i<BoardUtils.NUM_TILES; i++) {
-			tiles[i] = ChessTile.createTile(i, builder.boardConfig.get(i));
-			/* Here we are using boardConfig to get the chess piece, if there is one on tile i, which we pass into the 
-			 * createTile method. We will get either a new OccupiedTile or if no piece is on the tile, so null is passed, 
-			 * we get an empty tile (see ChessTile.createAllEmptyTiles() method)        */
-			
-			
+	/* This method is used to populate the rows of pieces on tiles 0->63, representing the chess board. 
+	 * Tiles with no piece on them are simply left as null. */
+	private static ChessPiece[][] buildGameBoard(final Builder builder) {
+		final ChessPiece[][] pieces = new ChessPiece[BoardUtils.TILES_IN_COL][BoardUtils.TILES_IN_ROW];
+		for(final ChessPiece piece : builder.boardConfig.values()) {
+			pieces[piece.getPiecePosition() / BoardUtils.TILES_IN_ROW][piece.getPiecePosition() % BoardUtils.TILES_IN_ROW] = piece;
 		}
-		return Collections.unmodifiableList(Arrays.asList(tiles));
+		return pieces;
+	}
+	
+	private static long[] buildPieceBitBoards(final Builder builder) {
+		final long[] bitBoards = new long[BitBoards.NUM_PIECE_BITBOARDS];
+		for(final ChessPiece piece : builder.boardConfig.values()) {
+			bitBoards[BitBoards.pieceIndex(piece.getPieceType(), piece.getPieceColour())] |= 
+					BitBoards.tileMask(piece.getPiecePosition());
+		}
+		return bitBoards;
+	}
+	
+	// Start deriving a new board from this one, see the Derivation class below
+	public Derivation derive() {
+		return new Derivation(this);
 	}
 	
 	public static Board createBoard() {
 		final Builder builder = new Builder();
 		// Construct black pieces
-		builder.setPiece(new Rook(PieceColour.BLACK, 0));
-		builder.setPiece(new Knight(PieceColour.BLACK, 1));
-		builder.setPiece(new Bishop(PieceColour.BLACK, 2));
-		builder.setPiece(new Queen(PieceColour.BLACK, 3));
-		builder.setPiece(new King(PieceColour.BLACK, 4));
-		builder.setPiece(new Bishop(PieceColour.BLACK, 5));
-		builder.setPiece(new Knight(PieceColour.BLACK, 6));
-		builder.setPiece(new Rook(PieceColour.BLACK, 7));
+		builder.setPiece(PieceCache.get(PieceType.ROOK, PieceColour.BLACK, 0));
+		builder.setPiece(PieceCache.get(PieceType.KNIGHT, PieceColour.BLACK, 1));
+		builder.setPiece(PieceCache.get(PieceType.BISHOP, PieceColour.BLACK, 2));
+		builder.setPiece(PieceCache.get(PieceType.QUEEN, PieceColour.BLACK, 3));
+		builder.setPiece(PieceCache.get(PieceType.KING, PieceColour.BLACK, 4));
+		builder.setPiece(PieceCache.get(PieceType.BISHOP, PieceColour.BLACK, 5));
+		builder.setPiece(PieceCache.get(PieceType.KNIGHT, PieceColour.BLACK, 6));
+		builder.setPiece(PieceCache.get(PieceType.ROOK, PieceColour.BLACK, 7));
 		for(int i=8; i<16; i++) {
-			builder.setPiece(new Pawn(PieceColour.BLACK, i));
+			builder.setPiece(PieceCache.get(PieceType.PAWN, PieceColour.BLACK, i));
 		}
 		
 		// Construct white pieces
 		for(int i=48; i<56; i++) {
-			builder.setPiece(new Pawn(PieceColour.WHITE, i));
+			builder.setPiece(PieceCache.get(PieceType.PAWN, PieceColour.WHITE, i));
 		}
-		builder.setPiece(new Rook(PieceColour.WHITE, 56));
-		builder.setPiece(new Knight(PieceColour.WHITE, 57));
-		builder.setPiece(new Bishop(PieceColour.WHITE, 58));
-		builder.setPiece(new Queen(PieceColour.WHITE, 59));
-		builder.setPiece(new King(PieceColour.WHITE, 60));
-		builder.setPiece(new Bishop(PieceColour.WHITE, 61));
-		builder.setPiece(new Knight(PieceColour.WHITE, 62));
-		builder.setPiece(new Rook(PieceColour.WHITE, 63));
+		builder.setPiece(PieceCache.get(PieceType.ROOK, PieceColour.WHITE, 56));
+		builder.setPiece(PieceCache.get(PieceType.KNIGHT, PieceColour.WHITE, 57));
+		builder.setPiece(PieceCache.get(PieceType.BISHOP, PieceColour.WHITE, 58));
+		builder.setPiece(PieceCache.get(PieceType.QUEEN, PieceColour.WHITE, 59));
+		builder.setPiece(PieceCache.get(PieceType.KING, PieceColour.WHITE, 60));
+		builder.setPiece(PieceCache.get(PieceType.BISHOP, PieceColour.WHITE, 61));
+		builder.setPiece(PieceCache.get(PieceType.KNIGHT, PieceColour.WHITE, 62));
+		builder.setPiece(PieceCache.get(PieceType.ROOK, PieceColour.WHITE, 63));
 		
 		builder.setMoveMaker(PieceColour.WHITE);
 		return builder.build();
@@ -161,10 +318,17 @@ public class Board {
 		
 		Map<Integer, ChessPiece> boardConfig;
 		PieceColour nextToMove;
-		Pawn enPassantPawn;
+		int castlingRights;
+		int enPassantTile;
+		int halfmoveClock;
+		int fullmoveNumber;
 		
 		public Builder() {
 			this.boardConfig = new HashMap<>();
+			this.castlingRights = UNKNOWN_CASTLING_RIGHTS;
+			this.enPassantTile = NO_EN_PASSANT_TILE;
+			this.halfmoveClock = 0;
+			this.fullmoveNumber = 1;
 		}
 		
 		public Builder setPiece(final ChessPiece piece) {
@@ -176,18 +340,238 @@ public class Board {
 			return this;
 		}
 		
+		
+		// If the castling rights aren't set, they're worked out from which kings and rooks haven't moved yet
+		public Builder setCastlingRights(final int castlingRights) {
+			this.castlingRights = castlingRights;
+			return this;
+		}
+		
+		public Builder setEnPassantTile(final int enPassantTile) {
+			this.enPassantTile = enPassantTile;
+			return this;
+		}
+		
+		public Builder setHalfmoveClock(final int halfmoveClock) {
+			this.halfmoveClock = halfmoveClock;
+			return this;
+		}
+		
+		public Builder setFullmoveNumber(final int fullmoveNumber) {
+			this.fullmoveNumber = fullmoveNumber;
+			return this;
+		}
+		
 		public Board build() {
-			return new Board(this);
+			final ChessPiece[][] pieces = buildGameBoard(this);
+			final long[] bitBoards = buildPieceBitBoards(this);
+			// rights which have been set still need their king and rook to be in place
+			final int castlingRights = this.castlingRights == UNKNOWN_CASTLING_RIGHTS ? 
+					CastlingRights.calculate(pieces) : this.castlingRights & CastlingRights.calculate(pieces);
+			return new Board(pieces, bitBoards, calculateActivePieces(pieces, bitBoards, PieceColour.WHITE), 
+					calculateActivePieces(pieces, bitBoards, PieceColour.BLACK), this.nextToMove, castlingRights, 
+					this.enPassantTile, this.halfmoveClock, this.fullmoveNumber, 
+					calculateZobristKey(bitBoards, this.nextToMove, castlingRights, this.enPassantTile));
 		}
 
+		// The pawn which has just jumped two tiles, so may be taken en passant on the tile it jumped over
 		public void setEnPassentPawn(Pawn enPassantPawn) {
-			this.enPassantPawn = enPassantPawn;
-			
+			this.enPassantTile = enPassantPawn == null ? NO_EN_PASSANT_TILE : jumpedTile(enPassantPawn);
+		}
+	}
+	
+	
+	/* The Builder starts from an empty board, so making a move with it means placing every piece again and then
+	 * scanning the whole board to work out each side's pieces. A move only ever changes 2-4 tiles though, so this 
+	 * class builds the board after a move from the board before it, changing only the tiles the move touches. 
+	 * Rows of tiles that aren't touched are shared with the parent board (which is safe, as boards are immutable), 
+	 * and a side's piece collection is shared too unless one of its pieces has moved or been taken. The castling 
+	 * rights and Zobrist key are likewise updated from the parent's, for just the tiles that change, and the move 
+	 * counters are moved on from the parent's. */
+	public static class Derivation {
+		
+		private final Board parent;
+		private final ChessPiece[][] boardConfig;
+		private final boolean[] copiedRows;
+		private final long[] pieceBitBoards;
+		private final List<ChessPiece> removedPieces;
+		private final List<ChessPiece> addedPieces;
+		private PieceColour nextToMove;
+		private int enPassantTile;
+		private int castlingRights;
+		private int halfmoveClock;
+		private long zobristKey;
+		
+		private Derivation(final Board parent) {
+			this.parent = parent;
+			this.boardConfig = parent.boardConfig.clone();  // copies the row references only, not the rows
+			this.copiedRows = new boolean[BoardUtils.TILES_IN_COL];
+			this.pieceBitBoards = parent.pieceBitBoards.clone();
+			this.removedPieces = new ArrayList<>(2);
+			this.addedPieces = new ArrayList<>(2);
+			this.nextToMove = parent.currentPlayer().getColour();
+			this.enPassantTile = NO_EN_PASSANT_TILE;
+			this.castlingRights = parent.castlingRights;
+			this.halfmoveClock = parent.halfmoveClock + 1;
+			this.zobristKey = parent.zobristKey;
+		}
+		
+		public Derivation removePiece(final int tileCoordinate) {
+			final int row = tileCoordinate / BoardUtils.TILES_IN_ROW;
+			final ChessPiece piece = this.boardConfig[row][tileCoordinate % BoardUtils.TILES_IN_ROW];
+			if(piece != null) {
+				writableRow(row)[tileCoordinate % BoardUtils.TILES_IN_ROW] = null;
+				final int pieceIndex = BitBoards.pieceIndex(piece.getPieceType(), piece.getPieceColour());
+				this.pieceBitBoards[pieceIndex] &= ~BitBoards.tileMask(tileCoordinate);
+				this.zobristKey ^= Zobrist.pieceKey(pieceIndex, tileCoordinate);
+				this.castlingRights = CastlingRights.update(this.castlingRights, tileCoordinate);
+				// a piece added earlier in this derivation never made it into the parent's collections
+				if(!this.addedPieces.remove(piece)) {
+					this.removedPieces.add(piece);
+				}
+			}
+			return this;
+		}
+		
+		// Places the piece on its tile, replacing (taking) anything already there
+		public Derivation setPiece(final ChessPiece piece) {
+			final int tileCoordinate = piece.getPiecePosition();
+			removePiece(tileCoordinate);
+			writableRow(tileCoordinate / BoardUtils.TILES_IN_ROW)[tileCoordinate % BoardUtils.TILES_IN_ROW] = piece;
+			final int pieceIndex = BitBoards.pieceIndex(piece.getPieceType(), piece.getPieceColour());
+			this.pieceBitBoards[pieceIndex] |= BitBoards.tileMask(tileCoordinate);
+			this.zobristKey ^= Zobrist.pieceKey(pieceIndex, tileCoordinate);
+			this.addedPieces.add(piece);
+			return this;
+		}
+		
+		public Derivation setMoveMaker(final PieceColour nextToMove) {
+			this.nextToMove = nextToMove;
+			return this;
+		}
+		
+		public Derivation setEnPassantPawn(final Pawn enPassantPawn) {
+			this.enPassantTile = jumpedTile(enPassantPawn);
+			return this;
+		}
+		
+		// For a pawn move or a take, which start the count towards the fifty move rule again
+		public Derivation resetHalfmoveClock() {
+			this.halfmoveClock = 0;
+			return this;
+		}
+		
+		public Board build() {
+			long key = this.zobristKey ^ Zobrist.castlingKey(this.parent.castlingRights) ^ 
+					Zobrist.castlingKey(this.castlingRights);
+			if(this.nextToMove != this.parent.currentPlayer().getColour()) {
+				key ^= Zobrist.blackToMoveKey();
+			}
+			if(this.parent.enPassantTile != NO_EN_PASSANT_TILE) {
+				key ^= Zobrist.enPassantKey(this.parent.enPassantTile);
+			}
+			if(this.enPassantTile != NO_EN_PASSANT_TILE) {
+				key ^= Zobrist.enPassantKey(this.enPassantTile);
+			}
+			// a new move number starts once black has moved
+			final int fullmoveNumber = this.parent.currentPlayer.getColour().isBlack() ? 
+					this.parent.fullmoveNumber + 1 : this.parent.fullmoveNumber;
+			return new Board(this.boardConfig, this.pieceBitBoards, 
+					derivePieces(this.parent.whitePieces, PieceColour.WHITE), 
+					derivePieces(this.parent.blackPieces, PieceColour.BLACK), this.nextToMove, this.castlingRights, 
+					this.enPassantTile, this.halfmoveClock, fullmoveNumber, key);
+		}
+		
+		// The first change to a row copies it, so the parent's row is never written to
+		private ChessPiece[] writableRow(final int row) {
+			if(!this.copiedRows[row]) {
+				this.boardConfig[row] = this.boardConfig[row].clone();
+				this.copiedRows[row] = true;
+			}
+			return this.boardConfig[row];
+		}
+		
+		private Collection<ChessPiece> derivePieces(final Collection<ChessPiece> parentPieces, final PieceColour colour) {
+			if(!containsColour(this.removedPieces, colour) && !containsColour(this.addedPieces, colour)) {
+				return parentPieces;
+			}
+			final List<ChessPiece> pieces = new ArrayList<>(parentPieces.size() + 1);
+			for(final ChessPiece piece : parentPieces) {
+				if(!this.removedPieces.contains(piece)) {
+					pieces.add(piece);
+				}
+			}
+			for(final ChessPiece piece : this.addedPieces) {
+				if(piece.getPieceColour() == colour) {
+					pieces.add(piece);
+				}
+			}
+			return Collections.unmodifiableList(pieces);
+		}
+		
+		private static boolean containsColour(final List<ChessPiece> pieces, final PieceColour colour) {
+			for(final ChessPiece piece : pieces) {
+				if(piece.getPieceColour() == colour) {
+					return true;
+				}
+			}
+			return false;
 		}
 	}
 
 
+	/* The pawn which has just jumped and may be taken en passant, or null. It sits one tile beyond the tile it jumped
+	 * over, in the direction it moves */
 	public Pawn getEnPassantPawn() {
-		return this.enPassantPawn;
+		if(this.enPassantTile == NO_EN_PASSANT_TILE) {
+			return null;
+		}
+		final PieceColour jumpedColour = this.currentPlayer.getColour().getOpponent();
+		return (Pawn) getPiece(this.enPassantTile + jumpedColour.getDirection() * BoardUtils.TILES_IN_ROW);
+	}
+	
+	// The tile a pawn has just jumped over, which an opposing pawn can move to and take it en passant, or -1
+	public int getEnPassantTile() {
+		return this.enPassantTile;
+	}
+	
+	public int getHalfmoveClock() {
+		return this.halfmoveClock;
+	}
+	
+	public int getFullmoveNumber() {
+		return this.fullmoveNumber;
+	}
+	
+	// The castling rights still available, as a set of CastlingRights bits
+	public int getCastlingRights() {
+		return this.castlingRights;
+	}
+	
+	public long getZobristKey() {
+		return this.zobristKey;
+	}
+	
+	/* The key of a board built from scratch, by xor'ing together the keys of everything in the position. Only the 
+	 * Builder needs this, derived boards update their parent's key instead */
+	private static long calculateZobristKey(final long[] pieceBitBoards, final PieceColour nextToMove, 
+			final int castlingRights, final int enPassantTile) {
+		long key = Zobrist.castlingKey(castlingRights);
+		for(int i = 0; i < BitBoards.NUM_PIECE_BITBOARDS; i++) {
+			for(long tiles = pieceBitBoards[i]; tiles != BitBoards.EMPTY; tiles = BitBoards.popLowestTile(tiles)) {
+				key ^= Zobrist.pieceKey(i, BitBoards.lowestTile(tiles));
+			}
+		}
+		if(nextToMove.isBlack()) {
+			key ^= Zobrist.blackToMoveKey();
+		}
+		if(enPassantTile != NO_EN_PASSANT_TILE) {
+			key ^= Zobrist.enPassantKey(enPassantTile);
+		}
+		return key;
+	}
+	
+	private static int jumpedTile(final Pawn jumpingPawn) {
+		return jumpingPawn.getPiecePosition() - jumpingPawn.getPieceColour().getDirection() * BoardUtils.TILES_IN_ROW;
 	}
 }
@@ -0,0 +1,73 @@
+package board_construction;
+
+import chess_pieces.ChessPiece;
+import chess_pieces.ChessPiece.PieceType;
+import chess_pieces.PieceColour;
+
+/* Castling availability is held as 4 bits, one for each side of the board for each colour. A right is lost for good
+ * as soon as the king or the rook it castles with moves, or the rook is taken. Both of those mean a piece leaving
+ * (or being taken on) the king's or rook's starting tile, so the rights after a move are the rights before it masked
+ * by the tiles the move touches - see update(). Like BitBoards, this class is not to be instantiated. */
+public class CastlingRights {
+
+	public static final int NONE = 0;
+	public static final int WHITE_KING_SIDE = 1;
+	public static final int WHITE_QUEEN_SIDE = 2;
+	public static final int BLACK_KING_SIDE = 4;
+	public static final int BLACK_QUEEN_SIDE = 8;
+	public static final int ALL = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+
+	// For each tile, the rights that survive a piece moving from, or being taken on, that tile
+	private static final int[] MASKS = initialiseMasks();
+
+	private CastlingRights() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static int update(final int castlingRights, final int tileCoordinate) {
+		return castlingRights & MASKS[tileCoordinate];
+	}
+
+	public static int kingSide(final PieceColour colour) {
+		return colour.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+	}
+
+	public static int queenSide(final PieceColour colour) {
+		return colour.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+	}
+
+	/* A board set up piece by piece has no record of castling rights. A king or rook which has not moved yet still has
+	 * its first move flag set though, so a right is available wherever the king and rook are both unmoved */
+	static int calculate(final ChessPiece[][] boardConfig) {
+		int castlingRights = NONE;
+		if(isUnmoved(boardConfig, 60, PieceType.KING)) {
+			castlingRights |= isUnmoved(boardConfig, 63, PieceType.ROOK) ? WHITE_KING_SIDE : NONE;
+			castlingRights |= isUnmoved(boardConfig, 56, PieceType.ROOK) ? WHITE_QUEEN_SIDE : NONE;
+		}
+		if(isUnmoved(boardConfig, 4, PieceType.KING)) {
+			castlingRights |= isUnmoved(boardConfig, 7, PieceType.ROOK) ? BLACK_KING_SIDE : NONE;
+			castlingRights |= isUnmoved(boardConfig, 0, PieceType.ROOK) ? BLACK_QUEEN_SIDE : NONE;
+		}
+		return castlingRights;
+	}
+
+	private static boolean isUnmoved(final ChessPiece[][] boardConfig, final int tile, final PieceType pieceType) {
+		final ChessPiece piece = boardConfig[tile / BoardUtils.TILES_IN_ROW][tile % BoardUtils.TILES_IN_ROW];
+		return piece != null && piece.getPieceType() == pieceType && piece.isFirstMove() &&
+				piece.getPieceColour() == (tile < 32 ? PieceColour.BLACK : PieceColour.WHITE);
+	}
+
+	private static int[] initialiseMasks() {
+		final int[] masks = new int[BoardUtils.NUM_TILES];
+		for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+			masks[i] = ALL;
+		}
+		masks[60] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+		masks[63] &= ~WHITE_KING_SIDE;
+		masks[56] &= ~WHITE_QUEEN_SIDE;
+		masks[4] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+		masks[7] &= ~BLACK_KING_SIDE;
+		masks[0] &= ~BLACK_QUEEN_SIDE;
+		return masks;
+	}
+}
@@ -0,0 +1,196 @@
+package board_construction;
+
+import chess_pieces.ChessPiece;
+import chess_pieces.ChessPiece.PieceType;
+import chess_pieces.PieceCache;
+import chess_pieces.PieceColour;
+
+/* Builds a Board from a position written in Forsyth-Edwards Notation, e.g. the starting position is
+ *   rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1
+ * The rows are given from black's side of the board (tile 0) down to white's (tile 63), the same order as the tiles
+ * are numbered in. After the pieces come the side to move, the castling rights, the en passant tile and, if they're
+ * given, the halfmove clock and fullmove number.
+ *
+ * The kings and rooks also have first move flags, which are set to match the castling rights here. Like BoardUtils,
+ * this class is not to be instantiated. */
+public class FenParser {
+
+	public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private FenParser() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static Board createBoard(final String fen) {
+		final String[] fields = fen.trim().split("\\s+");
+		if(fields.length < 4) {
+			throw new IllegalArgumentException("Invalid FEN, expected at least 4 fields: " + fen);
+		}
+		final String castling = fields[2];
+		final Board.Builder builder = new Board.Builder();
+
+		final String[] rows = fields[0].split("/", -1);
+		if(rows.length != BoardUtils.TILES_IN_COL) {
+			throw new IllegalArgumentException("Invalid FEN, expected 8 rows: " + fen);
+		}
+		final ChessPiece[] pieces = new ChessPiece[BoardUtils.NUM_TILES];
+		for(int row = 0; row < rows.length; row++) {
+			int column = 0;
+			for(final char c : rows[row].toCharArray()) {
+				if(c >= '1' && c <= '8') {
+					column += c - '0';
+					continue;
+				}
+				if(column >= BoardUtils.TILES_IN_ROW) {
+					throw new IllegalArgumentException("Invalid FEN, row " + (row + 1) + " is too long: " + fen);
+				}
+				final int tile = row * BoardUtils.TILES_IN_ROW + column;
+				final PieceColour colour = Character.isUpperCase(c) ? PieceColour.WHITE : PieceColour.BLACK;
+				final PieceType pieceType = parsePieceType(Character.toUpperCase(c), fen);
+				// a pawn is promoted on reaching the last rank, and can never have been on its own first rank
+				if(pieceType == PieceType.PAWN && (row == 0 || row == BoardUtils.TILES_IN_COL - 1)) {
+					throw new IllegalArgumentException("Invalid FEN, pawn on row " + (row + 1) + ": " + fen);
+				}
+				pieces[tile] = PieceCache.get(pieceType, colour, tile, isFirstMove(pieceType, colour, tile, castling));
+				builder.setPiece(pieces[tile]);
+				column++;
+			}
+			if(column != BoardUtils.TILES_IN_ROW) {
+				throw new IllegalArgumentException("Invalid FEN, row " + (row + 1) + " doesn't have 8 tiles: " + fen);
+			}
+		}
+		checkKings(pieces, fen);
+
+		final PieceColour nextToMove = parseSideToMove(fields[1], fen);
+		builder.setMoveMaker(nextToMove);
+
+		builder.setCastlingRights(parseCastlingRights(castling, fen));
+		if(!fields[3].equals("-")) {
+			builder.setEnPassantTile(parseEnPassantTile(fields[3], nextToMove, pieces, fen));
+		}
+		if(fields.length >= 6) {
+			builder.setHalfmoveClock(parseCounter(fields[4], fen));
+			builder.setFullmoveNumber(parseCounter(fields[5], fen));
+		}
+		return builder.build();
+	}
+
+	// The search and the check detection both rely on each side having its king, and only the one
+	private static void checkKings(final ChessPiece[] pieces, final String fen) {
+		int whiteKings = 0;
+		int blackKings = 0;
+		for(final ChessPiece piece : pieces) {
+			if(piece != null && piece.getPieceType() == PieceType.KING) {
+				if(piece.getPieceColour().isWhite()) {
+					whiteKings++;
+				} else {
+					blackKings++;
+				}
+			}
+		}
+		if(whiteKings != 1 || blackKings != 1) {
+			throw new IllegalArgumentException("Invalid FEN, each side needs exactly one king: " + fen);
+		}
+	}
+
+	private static PieceColour parseSideToMove(final String sideToMove, final String fen) {
+		switch(sideToMove) {
+			case "w":
+				return PieceColour.WHITE;
+			case "b":
+				return PieceColour.BLACK;
+			default:
+				throw new IllegalArgumentException("Invalid FEN, unknown side to move '" + sideToMove + "': " + fen);
+		}
+	}
+
+	/* The en passant tile is the empty tile the opponent's pawn has just jumped over, so the pawn must be in front of
+	 * it - on the 4th rank for a white pawn, with black to move, or the 5th for a black pawn */
+	private static int parseEnPassantTile(final String position, final PieceColour nextToMove, final ChessPiece[] pieces,
+			final String fen) {
+		final Integer tile = BoardUtils.POSITION_TO_COORDINATE.get(position);
+		final PieceColour jumpedColour = nextToMove.getOpponent();
+		final int jumpedRow = jumpedColour.isWhite() ? 5 : 2;
+		if(tile == null || tile / BoardUtils.TILES_IN_ROW != jumpedRow) {
+			throw new IllegalArgumentException("Invalid FEN, bad en passant tile '" + position + "': " + fen);
+		}
+		final ChessPiece jumpedPawn = pieces[tile + jumpedColour.getDirection() * BoardUtils.TILES_IN_ROW];
+		if(pieces[tile] != null || jumpedPawn == null || jumpedPawn.getPieceType() != PieceType.PAWN || 
+				jumpedPawn.getPieceColour() != jumpedColour) {
+			throw new IllegalArgumentException("Invalid FEN, no pawn has jumped over '" + position + "': " + fen);
+		}
+		return tile;
+	}
+
+	private static int parseCastlingRights(final String castling, final String fen) {
+		int castlingRights = CastlingRights.NONE;
+		if(castling.equals("-")) {
+			return castlingRights;
+		}
+		for(final char c : castling.toCharArray()) {
+			switch(c) {
+				case 'K':
+					castlingRights |= CastlingRights.WHITE_KING_SIDE;
+					break;
+				case 'Q':
+					castlingRights |= CastlingRights.WHITE_QUEEN_SIDE;
+					break;
+				case 'k':
+					castlingRights |= CastlingRights.BLACK_KING_SIDE;
+					break;
+				case 'q':
+					castlingRights |= CastlingRights.BLACK_QUEEN_SIDE;
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid FEN, unknown castling right '" + c + "': " + fen);
+			}
+		}
+		return castlingRights;
+	}
+
+	private static int parseCounter(final String counter, final String fen) {
+		try {
+			return Integer.parseInt(counter);
+		} catch(final NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid FEN, bad move counter '" + counter + "': " + fen, e);
+		}
+	}
+
+	private static PieceType parsePieceType(final char c, final String fen) {
+		switch(c) {
+			case 'P':
+				return PieceType.PAWN;
+			case 'N':
+				return PieceType.KNIGHT;
+			case 'B':
+				return PieceType.BISHOP;
+			case 'R':
+				return PieceType.ROOK;
+			case 'Q':
+				return PieceType.QUEEN;
+			case 'K':
+				return PieceType.KING;
+			default:
+				throw new IllegalArgumentException("Invalid FEN, unknown piece '" + c + "': " + fen);
+		}
+	}
+
+	/* Pawns on their starting row haven't moved. Kings and rooks count as unmoved only where they still have a
+	 * castling right, everything else is treated as having moved */
+	private static boolean isFirstMove(final PieceType pieceType, final PieceColour colour, final int tile,
+			final String castling) {
+		final boolean isWhite = colour.isWhite();
+		switch(pieceType) {
+			case PAWN:
+				return BitBoards.isTileSet(isWhite ? BitBoards.SEVENTH_RANK : BitBoards.SECOND_RANK, tile);
+			case ROOK:
+				return tile == (isWhite ? 63 : 7) && castling.indexOf(isWhite ? 'K' : 'k') != -1 ||
+						tile == (isWhite ? 56 : 0) && castling.indexOf(isWhite ? 'Q' : 'q') != -1;
+			case KING:
+				return tile == (isWhite ? 60 : 4) && (castling.indexOf(isWhite ? 'K' : 'k') != -1 ||
+						castling.indexOf(isWhite ? 'Q' : 'q') != -1);
+			default:
+				return false;
+		}
+	}
+}
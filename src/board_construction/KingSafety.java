@@ -0,0 +1,179 @@
+package board_construction;
+
+import chess_pieces.PieceColour;
+
+/* Works out, once per position, everything needed to tell whether a move leaves its own king in check - without
+ * having to make the move and look at the board that results. That is:
+ *  - the pieces giving check (the checkers). In double check only the king can move, in single check any other
+ *    piece must take the checker or block the line between it and the king.
+ *  - the pinned pieces, which sit alone between the king and an opposing rook, bishop or queen. A pinned piece may
+ *    only move along the line through the king and its pinner.
+ *  - in single check, which of our pieces could take the checker or block its line at all. Only those and the king
+ *    need their moves generated, which makes positions in check (common in the search's sharper lines) cheap.
+ *  - for the king itself, whether the tile it moves to is attacked. The king is taken off the board for this test,
+ *    so it can't hide from a slider by stepping back along the slider's own line.
+ * An en passant take removes two pieces from the same row, so it is checked directly instead.
+ *
+ * A single instance can be recalculated for each new position with calculate(), which lets the search reuse one
+ * object instead of creating a new one at every node. */
+public class KingSafety {
+
+	private long[] pieceBitBoards;
+	private int colour;
+	private int kingTile;
+	private long occupancy;
+	private long checkers;
+	private long pinned;
+	// The tiles a piece other than the king may move to - everywhere when not in check
+	private long checkEvasionTiles;
+	// The pieces other than the king which may have a move - all of them when not in check
+	private long evasionPieces;
+
+	public KingSafety() {
+	}
+
+	public KingSafety(final long[] pieceBitBoards, final PieceColour colour) {
+		calculate(pieceBitBoards, BitBoards.colourIndex(colour));
+	}
+
+	/* The bitboards are in the BitBoards.pieceIndex layout and are read (not copied) by the legality checks below, so
+	 * they mustn't change until the next call to calculate() */
+	public void calculate(final long[] pieceBitBoards, final int colour) {
+		this.pieceBitBoards = pieceBitBoards;
+		this.colour = colour;
+		final int opponentBase = (colour ^ 1) * 6;
+		long ownPieces = 0L;
+		long opponentPieces = 0L;
+		for(int i = 0; i < 6; i++) {
+			ownPieces |= pieceBitBoards[colour * 6 + i];
+			opponentPieces |= pieceBitBoards[opponentBase + i];
+		}
+		this.occupancy = ownPieces | opponentPieces;
+		this.kingTile = BitBoards.lowestTile(pieceBitBoards[colour * 6 + 5]);
+
+		// Pawns and knights can only give check directly, they can't pin anything
+		this.checkers = (AttackTables.pawnAttacks(colour, this.kingTile) & pieceBitBoards[opponentBase]) |
+				(AttackTables.knightAttacks(this.kingTile) & pieceBitBoards[opponentBase + 1]);
+		this.pinned = 0L;
+
+		/* Look from the king through our own pieces to the opposing sliders. A slider with nothing between it and the
+		 * king gives check, one with exactly one of our pieces in the way pins that piece */
+		final long queens = pieceBitBoards[opponentBase + 4];
+		long sliders = (AttackTables.bishopAttacks(this.kingTile, opponentPieces) & (pieceBitBoards[opponentBase + 2] | queens)) |
+				(AttackTables.rookAttacks(this.kingTile, opponentPieces) & (pieceBitBoards[opponentBase + 3] | queens));
+		for(; sliders != 0; sliders = BitBoards.popLowestTile(sliders)) {
+			final int sliderTile = BitBoards.lowestTile(sliders);
+			final long blockers = AttackTables.between(this.kingTile, sliderTile) & this.occupancy;
+			if(blockers == 0) {
+				this.checkers |= BitBoards.tileMask(sliderTile);
+			} else if(BitBoards.popLowestTile(blockers) == 0 && (blockers & ownPieces) != 0) {
+				this.pinned |= blockers;
+			}
+		}
+
+		if(this.checkers == 0) {
+			this.checkEvasionTiles = ~0L;
+			this.evasionPieces = ~0L;
+		} else if(BitBoards.popLowestTile(this.checkers) == 0) {
+			final int checkerTile = BitBoards.lowestTile(this.checkers);
+			this.checkEvasionTiles = this.checkers | AttackTables.between(this.kingTile, checkerTile);
+			this.evasionPieces = calculateEvasionPieces(checkerTile);
+		} else {
+			this.checkEvasionTiles = 0L;
+			this.evasionPieces = 0L;
+		}
+	}
+
+	/* Our pieces which attack the checker, or could move into the line between it and the king. Pawns don't move
+	 * the way they attack, so for the blocking tiles we look for pawns one or two tiles behind instead, and a
+	 * checking pawn might be taken en passant by a pawn beside it. It doesn't matter if a piece found here turns out
+	 * to have no move after all (say the pawn is blocked), the legality checks still apply - what matters is that no
+	 * piece with a move is missed. Pinned pieces can never get out of check */
+	private long calculateEvasionPieces(final int checkerTile) {
+		final long ownPawns = this.pieceBitBoards[this.colour * 6];
+		final int behind = this.colour == 0 ? BoardUtils.TILES_IN_ROW : -BoardUtils.TILES_IN_ROW;
+		long pieces = AttackTables.attackersOf(checkerTile, this.colour, this.occupancy, this.pieceBitBoards);
+		for(long blocks = AttackTables.between(this.kingTile, checkerTile); blocks != 0; 
+				blocks = BitBoards.popLowestTile(blocks)) {
+			final int blockTile = BitBoards.lowestTile(blocks);
+			pieces |= AttackTables.attackersOf(blockTile, this.colour, this.occupancy, this.pieceBitBoards) & ~ownPawns;
+			pieces |= (tileMaskIfOnBoard(blockTile + behind) | tileMaskIfOnBoard(blockTile + 2 * behind)) & ownPawns;
+		}
+		if(BitBoards.isTileSet(this.pieceBitBoards[(this.colour ^ 1) * 6], checkerTile)) {
+			final long checkerRow = 0xFFL << (checkerTile / BoardUtils.TILES_IN_ROW * BoardUtils.TILES_IN_ROW);
+			pieces |= AttackTables.kingAttacks(checkerTile) & checkerRow & ownPawns;
+		}
+		return pieces & ~BitBoards.tileMask(this.kingTile) & ~this.pinned;
+	}
+
+	private static long tileMaskIfOnBoard(final int tile) {
+		return BoardUtils.isValidTileCoordinate(tile) ? BitBoards.tileMask(tile) : 0L;
+	}
+
+	public boolean isInCheck() {
+		return this.checkers != 0;
+	}
+
+	public boolean isInDoubleCheck() {
+		return BitBoards.countTiles(this.checkers) > 1;
+	}
+
+	public int getKingTile() {
+		return this.kingTile;
+	}
+
+	public long getCheckers() {
+		return this.checkers;
+	}
+
+	public long getPinnedPieces() {
+		return this.pinned;
+	}
+
+	public long getCheckEvasionTiles() {
+		return this.checkEvasionTiles;
+	}
+
+	public long getEvasionPieces() {
+		return this.evasionPieces;
+	}
+
+	/* Would the move leave our king safe? Castling is checked separately with isLegalCastle(), as the king must
+	 * also not be in check or pass over an attacked tile */
+	public boolean isLegalMove(final int sourceTile, final int destinationTile, final boolean isKingMove,
+			final boolean isEnPassant) {
+		if(isKingMove) {
+			return isSafeKingTile(destinationTile);
+		}
+		if(isEnPassant) {
+			return isLegalEnPassant(sourceTile, destinationTile);
+		}
+		if(!BitBoards.isTileSet(this.checkEvasionTiles, destinationTile)) {
+			return false;
+		}
+		return !BitBoards.isTileSet(this.pinned, sourceTile) ||
+				BitBoards.isTileSet(AttackTables.line(this.kingTile, sourceTile), destinationTile);
+	}
+
+	// The king moves two tiles along its row, so the tile half way is the one it passes over
+	public boolean isLegalCastle(final int kingDestinationTile) {
+		return this.checkers == 0 && isSafeKingTile(kingDestinationTile) &&
+				isSafeKingTile((this.kingTile + kingDestinationTile) / 2);
+	}
+
+	public boolean isSafeKingTile(final int tile) {
+		return !AttackTables.isTileAttacked(tile, this.colour ^ 1, this.occupancy & ~BitBoards.tileMask(this.kingTile),
+				this.pieceBitBoards);
+	}
+
+	/* Simplest to just look at the board after the take: with our pawn moved and the taken pawn removed, is the king
+	 * attacked by anything other than the taken pawn? */
+	private boolean isLegalEnPassant(final int sourceTile, final int destinationTile) {
+		final int takenTile = (sourceTile / BoardUtils.TILES_IN_ROW) * BoardUtils.TILES_IN_ROW +
+				destinationTile % BoardUtils.TILES_IN_ROW;
+		final long occupancyAfter = (this.occupancy & ~BitBoards.tileMask(sourceTile) & ~BitBoards.tileMask(takenTile)) |
+				BitBoards.tileMask(destinationTile);
+		final long attackers = AttackTables.attackersOf(this.kingTile, this.colour ^ 1, occupancyAfter, this.pieceBitBoards);
+		return (attackers & ~BitBoards.tileMask(takenTile)) == 0;
+	}
+}
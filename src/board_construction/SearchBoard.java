@@ -0,0 +1,486 @@
+package board_construction;
+
+import chess_pieces.ChessPiece;
+import chess_pieces.ChessPiece.PieceType;
+import chess_pieces.PackedMove;
+import chess_pieces.PieceColour;
+import player.GameStatus;
+
+/* The Board class is immutable, which is what we want for the GUI and the move history, but it means every move
+ * the ai looks at builds a brand new board along with both players' moves. This class is a mutable copy of a
+ * position used only by the search. A move is made in place with makeMove() and taken back with unmakeMove(),
+ * which restores the position from a small undo record kept for each ply, so searching allocates next to nothing.
+ * Only legal moves are generated (see KingSafety), so a move never has to be made just to find it was illegal.
+ *
+ * The position is held in the same bitboard layout as Board (see BitBoards) and moves are packed into an int (see
+ * PackedMove). Each ply has its own preallocated move list, so generating moves doesn't allocate either. */
+public class SearchBoard {
+
+	public static final int MAX_MOVES = 256;
+	public static final int MAX_PLY = 256;
+
+	private static final int NO_PIECE = -1;
+	private static final int UNKNOWN = -1;
+	private static final int PAWN = 0;
+	private static final int KNIGHT = 1;
+	private static final int BISHOP = 2;
+	private static final int ROOK = 3;
+	private static final int QUEEN = 4;
+	private static final int KING = 5;
+
+	private static final int WHITE = 0;
+	private static final int BLACK = 1;
+
+	private static final long ALL_TILES = -1L;
+	private static final PieceType[] PIECE_TYPES = PieceType.values();
+	private static final int[] PIECE_VALUES = initialisePieceValues();
+
+	private final long[] pieceBitBoards = new long[BitBoards.NUM_PIECE_BITBOARDS];
+	private final long[] colourOccupancy = new long[2];
+	private long allOccupancy;
+	private final int[] pieceOnTile = new int[BoardUtils.NUM_TILES];
+
+	private int sideToMove;
+	private int castlingRights;
+	private int enPassantTile;
+	private long zobristKey;
+
+	// The undo records, one entry per ply that has been made
+	private int ply;
+	private final int[] undoMove = new int[MAX_PLY];
+	private final int[] undoTakenPiece = new int[MAX_PLY];
+	private final int[] undoCastlingRights = new int[MAX_PLY];
+	private final int[] undoEnPassantTile = new int[MAX_PLY];
+	private final int[] undoSideToMove = new int[MAX_PLY];
+	private final long[] undoZobristKey = new long[MAX_PLY];
+
+	// Recalculated for the colour being generated, every time moves are generated
+	private final KingSafety kingSafety = new KingSafety();
+
+	/* The number of legal moves of each colour in the current position, or UNKNOWN until they've been generated.
+	 * The game status, mobility and the search itself all need these, so they're only generated once per position
+	 * and forgotten whenever a move is made or taken back */
+	private final int[] legalMoveCounts = {UNKNOWN, UNKNOWN};
+
+	// A move list for each ply of the search, and one more for counting and finding moves
+	private final int[][] moveLists = new int[MAX_PLY + 1][MAX_MOVES];
+	private final int[] scratchMoveList = new int[MAX_MOVES];
+
+
+	public SearchBoard(final Board board) {
+		for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+			this.pieceOnTile[i] = NO_PIECE;
+			final ChessPiece piece = board.getPiece(i);
+			if(piece != null) {
+				putPiece(BitBoards.pieceIndex(piece.getPieceType(), piece.getPieceColour()), i);
+			}
+		}
+		this.sideToMove = BitBoards.colourIndex(board.currentPlayer().getColour());
+		this.castlingRights = board.getCastlingRights();
+		this.enPassantTile = board.getEnPassantTile();
+		// placing the pieces built up a key of its own, but the board's key already covers the whole position
+		this.zobristKey = board.getZobristKey();
+	}
+
+	@Override public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+			final int piece = this.pieceOnTile[i];
+			String tileText = "-";
+			if(piece != NO_PIECE) {
+				tileText = PieceType.values()[piece % 6].toString();
+				tileText = piece < 6 ? tileText : tileText.toLowerCase();
+			}
+			builder.append(String.format("%3s", tileText));
+			if((i+1) % BoardUtils.TILES_IN_ROW == 0) {
+				builder.append("\n");
+			}
+		}
+		return builder.toString();
+	}
+
+
+	// Matches the key of a Board holding the same position (see Zobrist)
+	public long getZobristKey() {
+		return this.zobristKey;
+	}
+
+	public PieceColour getSideToMove() {
+		return this.sideToMove == WHITE ? PieceColour.WHITE : PieceColour.BLACK;
+	}
+
+	public boolean isInCheck(final PieceColour colour) {
+		final int colourIndex = BitBoards.colourIndex(colour);
+		return AttackTables.isTileAttacked(kingTile(colourIndex), colourIndex ^ 1, this.allOccupancy, this.pieceBitBoards);
+	}
+
+	public boolean isInCheckMate(final PieceColour colour) {
+		return isInCheck(colour) && countMoves(colour) == 0;
+	}
+
+	public boolean isInStalemate(final PieceColour colour) {
+		return !isInCheck(colour) && countMoves(colour) == 0;
+	}
+
+	// Check, checkmate or stalemate for the side to move
+	public GameStatus getGameStatus() {
+		final PieceColour colour = getSideToMove();
+		return GameStatus.of(isInCheck(colour), countMoves(colour) > 0);
+	}
+
+	// The total value of the colour's pieces, using the piece values in ChessPiece.PieceType
+	public int getPieceValue(final PieceColour colour) {
+		final int base = BitBoards.colourIndex(colour) * 6;
+		int value = 0;
+		for(int i = PAWN; i <= KING; i++) {
+			value += BitBoards.countTiles(this.pieceBitBoards[base + i]) * PIECE_VALUES[i];
+		}
+		return value;
+	}
+
+	// The number of legal moves available to the colour, counted the same way as the allowed moves of a Player
+	public int countMoves(final PieceColour colour) {
+		final int colourIndex = BitBoards.colourIndex(colour);
+		if(this.legalMoveCounts[colourIndex] == UNKNOWN) {
+			this.legalMoveCounts[colourIndex] = generateMoves(colourIndex, this.scratchMoveList, 0, ALL_TILES, true, true);
+		}
+		return this.legalMoveCounts[colourIndex];
+	}
+
+	/* The move list belonging to the current ply. It can be filled with generateMoves() and is left alone until the
+	 * search comes back to this ply, however deep it goes in between */
+	public int[] getMoveList() {
+		return this.moveLists[this.ply];
+	}
+
+	/* Fills the array with the legal moves of the side to move and returns how many there are. Having none at all
+	 * means the game is over, checkmate or stalemate depending on whether the side to move is in check */
+	public int generateMoves(final int[] moves) {
+		final int numMoves = generateMoves(this.sideToMove, moves, 0, ALL_TILES, true, true);
+		this.legalMoveCounts[this.sideToMove] = numMoves;
+		return numMoves;
+	}
+
+	/* The legal moves can also be generated in two halves, so a search can try the captures first and never
+	 * generate the quiet moves at all if one of the captures is good enough (see ai.MovePicker). Captures here
+	 * include en passant and promotions, the quiet moves are everything else, castling included. Both add to the
+	 * moves already in the array and return the new number of moves */
+	public int generateCaptures(final int[] moves, final int numMoves) {
+		return generateMoves(this.sideToMove, moves, numMoves, ALL_TILES, true, false);
+	}
+
+	public int generateQuietMoves(final int[] moves, final int numMoves) {
+		return generateMoves(this.sideToMove, moves, numMoves, ALL_TILES, false, true);
+	}
+
+	/* Is the move one of the legal moves of the side to move? Used for moves remembered from other positions, such
+	 * as a best move from the hash table, which may not be possible here. Only the moves of the piece on the move's
+	 * source tile are generated to find out */
+	public boolean isLegalMove(final int move) {
+		final int sourceTile = PackedMove.getSourceTile(move);
+		if(move == PackedMove.NO_MOVE || this.pieceOnTile[sourceTile] == NO_PIECE ||
+				this.pieceOnTile[sourceTile] / 6 != this.sideToMove) {
+			return false;
+		}
+		final int[] moves = this.scratchMoveList;
+		final int numMoves = generateMoves(this.sideToMove, moves, 0, BitBoards.tileMask(sourceTile), true, true);
+		for(int i = 0; i < numMoves; i++) {
+			if(moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// The type of the piece on the tile, or null if the tile is empty
+	public PieceType getPieceType(final int tile) {
+		final int piece = this.pieceOnTile[tile];
+		return piece == NO_PIECE ? null : PIECE_TYPES[piece % 6];
+	}
+
+	// Finds the move of the side to move between the two tiles, returning NO_MOVE if there isn't one
+	public int findMove(final int sourceTile, final int destinationTile) {
+		final int[] moves = this.scratchMoveList;
+		final int numMoves = generateMoves(moves);
+		for(int i = 0; i < numMoves; i++) {
+			if(PackedMove.getSourceTile(moves[i]) == sourceTile &&
+					PackedMove.getDestinationTile(moves[i]) == destinationTile) {
+				return moves[i];
+			}
+		}
+		return PackedMove.NO_MOVE;
+	}
+
+
+	/* Makes the move in place, where it stands until the matching call to unmakeMove(). The move must be one
+	 * returned by generateMoves() for this position */
+	public void makeMove(final int move) {
+		final int sourceTile = PackedMove.getSourceTile(move);
+		final int destinationTile = PackedMove.getDestinationTile(move);
+		final int kind = PackedMove.getKind(move);
+		final int movedPiece = this.pieceOnTile[sourceTile];
+		final int colour = movedPiece / 6;
+
+		int takenTile = destinationTile;
+		if(kind == PackedMove.EN_PASSANT) {
+			// the pawn taken en passant sits behind the destination tile, from the moving pawn's point of view
+			takenTile = destinationTile - pawnDirection(colour);
+		}
+
+		this.undoMove[this.ply] = move;
+		this.undoTakenPiece[this.ply] = this.pieceOnTile[takenTile];
+		this.undoCastlingRights[this.ply] = this.castlingRights;
+		this.undoEnPassantTile[this.ply] = this.enPassantTile;
+		this.undoSideToMove[this.ply] = this.sideToMove;
+		this.undoZobristKey[this.ply] = this.zobristKey;
+		this.ply++;
+
+		if(this.pieceOnTile[takenTile] != NO_PIECE) {
+			removePiece(takenTile);
+		}
+		removePiece(sourceTile);
+		putPiece(PackedMove.isPromotion(move) ?
+				colour * 6 + PackedMove.getPromotionPieceType(move).ordinal() : movedPiece, destinationTile);
+
+		if(kind == PackedMove.KING_SIDE_CASTLE) {
+			movePiece(sourceTile + 3, sourceTile + 1);
+		} else if(kind == PackedMove.QUEEN_SIDE_CASTLE) {
+			movePiece(sourceTile - 4, sourceTile - 1);
+		}
+
+		// the pieces' keys were updated as they moved, the rest of the position's key is updated here
+		if(this.enPassantTile != -1) {
+			this.zobristKey ^= Zobrist.enPassantKey(this.enPassantTile);
+		}
+		this.enPassantTile = kind == PackedMove.PAWN_JUMP ? (sourceTile + destinationTile) / 2 : -1;
+		if(this.enPassantTile != -1) {
+			this.zobristKey ^= Zobrist.enPassantKey(this.enPassantTile);
+		}
+		this.zobristKey ^= Zobrist.castlingKey(this.castlingRights);
+		this.castlingRights = CastlingRights.update(CastlingRights.update(this.castlingRights, sourceTile),
+				destinationTile);
+		this.zobristKey ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.blackToMoveKey();
+		this.sideToMove = colour ^ 1;
+		forgetLegalMoveCounts();
+	}
+
+	// Takes back the last move made, restoring the position from its undo record
+	public void unmakeMove() {
+		this.ply--;
+		final int move = this.undoMove[this.ply];
+		final int sourceTile = PackedMove.getSourceTile(move);
+		final int destinationTile = PackedMove.getDestinationTile(move);
+		final int kind = PackedMove.getKind(move);
+		final int movedPiece = this.pieceOnTile[destinationTile];
+		final int colour = movedPiece / 6;
+
+		// a promoted piece goes back to being a pawn
+		removePiece(destinationTile);
+		putPiece(PackedMove.isPromotion(move) ? colour * 6 + PAWN : movedPiece, sourceTile);
+
+		if(kind == PackedMove.KING_SIDE_CASTLE) {
+			movePiece(sourceTile + 1, sourceTile + 3);
+		} else if(kind == PackedMove.QUEEN_SIDE_CASTLE) {
+			movePiece(sourceTile - 1, sourceTile - 4);
+		}
+
+		final int takenPiece = this.undoTakenPiece[this.ply];
+		if(takenPiece != NO_PIECE) {
+			putPiece(takenPiece, kind == PackedMove.EN_PASSANT ? destinationTile - pawnDirection(colour) : destinationTile);
+		}
+
+		this.castlingRights = this.undoCastlingRights[this.ply];
+		this.enPassantTile = this.undoEnPassantTile[this.ply];
+		this.sideToMove = this.undoSideToMove[this.ply];
+		this.zobristKey = this.undoZobristKey[this.ply];
+		forgetLegalMoveCounts();
+	}
+
+	private void forgetLegalMoveCounts() {
+		this.legalMoveCounts[WHITE] = UNKNOWN;
+		this.legalMoveCounts[BLACK] = UNKNOWN;
+	}
+
+
+	/* Moves of pinned pieces, and moves which don't deal with a check, are left out as they're generated. In double
+	 * check only the king may move, so nothing else is looked at. Only the pieces on the source tiles given are
+	 * moved, and the captures and quiet moves can each be left out */
+	private int generateMoves(final int colour, final int[] moves, int numMoves, final long sourceTiles,
+			final boolean captures, final boolean quiets) {
+		final KingSafety safety = this.kingSafety;
+		safety.calculate(this.pieceBitBoards, colour);
+		final int base = colour * 6;
+		final long opponentPieces = this.colourOccupancy[colour ^ 1];
+		final long destinationTiles = (captures ? opponentPieces : 0) | (quiets ? ~this.allOccupancy : 0);
+		final int direction = pawnDirection(colour);
+		final int kingTile = safety.getKingTile();
+		if(BitBoards.isTileSet(sourceTiles, kingTile)) {
+			numMoves = addKingMoves(kingTile, AttackTables.kingAttacks(kingTile) & destinationTiles, moves, numMoves);
+		}
+		if(safety.isInDoubleCheck()) {
+			return numMoves;
+		}
+		// In check, only the pieces which could take the checker or block its line are looked at (see KingSafety)
+		final long movingPieces = sourceTiles & safety.getEvasionPieces();
+
+		for(long pawns = this.pieceBitBoards[base + PAWN] & movingPieces; pawns != 0;
+				pawns = BitBoards.popLowestTile(pawns)) {
+			final int sourceTile = BitBoards.lowestTile(pawns);
+			final int forwardTile = sourceTile + direction;
+			final boolean promotes = isPromotionTile(colour, forwardTile);
+			// a push onto the last row is a promotion, which counts with the captures
+			if(this.pieceOnTile[forwardTile] == NO_PIECE && (promotes ? captures : quiets)) {
+				if(safety.isLegalMove(sourceTile, forwardTile, false, false)) {
+					moves[numMoves++] = PackedMove.createMove(sourceTile, forwardTile,
+							promotes ? PackedMove.QUEEN_PROMOTION : PackedMove.QUIET);
+				}
+				final int jumpTile = forwardTile + direction;
+				if(isPawnStartTile(colour, sourceTile) && this.pieceOnTile[jumpTile] == NO_PIECE &&
+						safety.isLegalMove(sourceTile, jumpTile, false, false)) {
+					moves[numMoves++] = PackedMove.createMove(sourceTile, jumpTile, PackedMove.PAWN_JUMP);
+				}
+			}
+			if(!captures) {
+				continue;
+			}
+			final long attacks = AttackTables.pawnAttacks(colour, sourceTile);
+			for(long takes = attacks & opponentPieces; takes != 0; takes = BitBoards.popLowestTile(takes)) {
+				final int destinationTile = BitBoards.lowestTile(takes);
+				if(safety.isLegalMove(sourceTile, destinationTile, false, false)) {
+					moves[numMoves++] = PackedMove.createMove(sourceTile, destinationTile,
+							promotes ? PackedMove.QUEEN_PROMOTION_CAPTURE : PackedMove.CAPTURE);
+				}
+			}
+			if(this.enPassantTile != -1 && colour == this.sideToMove &&
+					BitBoards.isTileSet(attacks, this.enPassantTile) &&
+					safety.isLegalMove(sourceTile, this.enPassantTile, false, true)) {
+				moves[numMoves++] = PackedMove.createMove(sourceTile, this.enPassantTile, PackedMove.EN_PASSANT);
+			}
+		}
+
+		for(long knights = this.pieceBitBoards[base + KNIGHT] & movingPieces; knights != 0;
+				knights = BitBoards.popLowestTile(knights)) {
+			final int sourceTile = BitBoards.lowestTile(knights);
+			numMoves = addMoves(sourceTile, AttackTables.knightAttacks(sourceTile) & destinationTiles, moves, numMoves);
+		}
+		for(long bishops = this.pieceBitBoards[base + BISHOP] & movingPieces; bishops != 0;
+				bishops = BitBoards.popLowestTile(bishops)) {
+			final int sourceTile = BitBoards.lowestTile(bishops);
+			numMoves = addMoves(sourceTile,
+					AttackTables.bishopAttacks(sourceTile, this.allOccupancy) & destinationTiles, moves, numMoves);
+		}
+		for(long rooks = this.pieceBitBoards[base + ROOK] & movingPieces; rooks != 0;
+				rooks = BitBoards.popLowestTile(rooks)) {
+			final int sourceTile = BitBoards.lowestTile(rooks);
+			numMoves = addMoves(sourceTile, AttackTables.rookAttacks(sourceTile, this.allOccupancy) & destinationTiles,
+					moves, numMoves);
+		}
+		for(long queens = this.pieceBitBoards[base + QUEEN] & movingPieces; queens != 0;
+				queens = BitBoards.popLowestTile(queens)) {
+			final int sourceTile = BitBoards.lowestTile(queens);
+			numMoves = addMoves(sourceTile, AttackTables.queenAttacks(sourceTile, this.allOccupancy) & destinationTiles,
+					moves, numMoves);
+		}
+		return quiets && BitBoards.isTileSet(sourceTiles, kingTile) ? addCastles(colour, kingTile, moves, numMoves) :
+				numMoves;
+	}
+
+	/* A piece other than the king may only move to a tile which deals with any check, and a pinned piece only along
+	 * the line of its pin */
+	private int addMoves(final int sourceTile, long destinations, final int[] moves, int numMoves) {
+		destinations &= this.kingSafety.getCheckEvasionTiles();
+		if(BitBoards.isTileSet(this.kingSafety.getPinnedPieces(), sourceTile)) {
+			destinations &= AttackTables.line(this.kingSafety.getKingTile(), sourceTile);
+		}
+		for(long tiles = destinations; tiles != 0; tiles = BitBoards.popLowestTile(tiles)) {
+			final int destinationTile = BitBoards.lowestTile(tiles);
+			moves[numMoves++] = PackedMove.createMove(sourceTile, destinationTile,
+					this.pieceOnTile[destinationTile] == NO_PIECE ? PackedMove.QUIET : PackedMove.CAPTURE);
+		}
+		return numMoves;
+	}
+
+	private int addKingMoves(final int kingTile, final long destinations, final int[] moves, int numMoves) {
+		for(long tiles = destinations; tiles != 0; tiles = BitBoards.popLowestTile(tiles)) {
+			final int destinationTile = BitBoards.lowestTile(tiles);
+			if(this.kingSafety.isSafeKingTile(destinationTile)) {
+				moves[numMoves++] = PackedMove.createMove(kingTile, destinationTile,
+						this.pieceOnTile[destinationTile] == NO_PIECE ? PackedMove.QUIET : PackedMove.CAPTURE);
+			}
+		}
+		return numMoves;
+	}
+
+	/* Castling needs the right to still be available, the tiles between king and rook to be empty, and the king
+	 * must not be in check or pass over or land on an attacked tile */
+	private int addCastles(final int colour, final int kingTile, final int[] moves, int numMoves) {
+		final int kingSide = colour == WHITE ? CastlingRights.WHITE_KING_SIDE : CastlingRights.BLACK_KING_SIDE;
+		final int queenSide = colour == WHITE ? CastlingRights.WHITE_QUEEN_SIDE : CastlingRights.BLACK_QUEEN_SIDE;
+		if((this.castlingRights & (kingSide | queenSide)) == 0 || this.kingSafety.isInCheck()) {
+			return numMoves;
+		}
+		if((this.castlingRights & kingSide) != 0 &&
+				this.pieceOnTile[kingTile + 1] == NO_PIECE && this.pieceOnTile[kingTile + 2] == NO_PIECE &&
+				this.kingSafety.isLegalCastle(kingTile + 2)) {
+			moves[numMoves++] = PackedMove.createMove(kingTile, kingTile + 2, PackedMove.KING_SIDE_CASTLE);
+		}
+		if((this.castlingRights & queenSide) != 0 && this.pieceOnTile[kingTile - 1] == NO_PIECE &&
+				this.pieceOnTile[kingTile - 2] == NO_PIECE && this.pieceOnTile[kingTile - 3] == NO_PIECE &&
+				this.kingSafety.isLegalCastle(kingTile - 2)) {
+			moves[numMoves++] = PackedMove.createMove(kingTile, kingTile - 2, PackedMove.QUEEN_SIDE_CASTLE);
+		}
+		return numMoves;
+	}
+
+	private int kingTile(final int colour) {
+		return BitBoards.lowestTile(this.pieceBitBoards[colour * 6 + KING]);
+	}
+
+
+	private void putPiece(final int piece, final int tile) {
+		final long mask = BitBoards.tileMask(tile);
+		this.pieceBitBoards[piece] |= mask;
+		this.colourOccupancy[piece / 6] |= mask;
+		this.allOccupancy |= mask;
+		this.pieceOnTile[tile] = piece;
+		this.zobristKey ^= Zobrist.pieceKey(piece, tile);
+	}
+
+	private void removePiece(final int tile) {
+		final int piece = this.pieceOnTile[tile];
+		final long mask = ~BitBoards.tileMask(tile);
+		this.pieceBitBoards[piece] &= mask;
+		this.colourOccupancy[piece / 6] &= mask;
+		this.allOccupancy &= mask;
+		this.pieceOnTile[tile] = NO_PIECE;
+		this.zobristKey ^= Zobrist.pieceKey(piece, tile);
+	}
+
+	private void movePiece(final int sourceTile, final int destinationTile) {
+		final int piece = this.pieceOnTile[sourceTile];
+		removePiece(sourceTile);
+		putPiece(piece, destinationTile);
+	}
+
+	// white pawns move towards tile 0, black pawns towards tile 63
+	private static int pawnDirection(final int colour) {
+		return colour == WHITE ? -BoardUtils.TILES_IN_ROW : BoardUtils.TILES_IN_ROW;
+	}
+
+	private static boolean isPromotionTile(final int colour, final int tile) {
+		return BitBoards.isTileSet(colour == WHITE ? BitBoards.FIRST_RANK : BitBoards.EIGHTH_RANK, tile);
+	}
+
+	private static boolean isPawnStartTile(final int colour, final int tile) {
+		return BitBoards.isTileSet(colour == WHITE ? BitBoards.SEVENTH_RANK : BitBoards.SECOND_RANK, tile);
+	}
+
+
+	private static int[] initialisePieceValues() {
+		final int[] values = new int[6];
+		for(final PieceType pieceType : PieceType.values()) {
+			values[pieceType.ordinal()] = pieceType.getPieceValue();
+		}
+		return values;
+	}
+}
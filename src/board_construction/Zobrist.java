@@ -0,0 +1,70 @@
+package board_construction;
+
+/* Zobrist hashing gives each position a 64 bit key. Every feature of a position - each piece type and colour on each
+ * tile, black being the side to move, each castling availability and the file of an en passant pawn - is given a
+ * random 64 bit number, and a position's key is all the numbers of the features it has xor'ed together. Xor undoes
+ * itself, so when a move changes a few features the key is updated by xor'ing just those numbers in or out, rather
+ * than hashing the whole board again.
+ *
+ * Board and SearchBoard both keep their key up to date this way, and they use the same numbers, so the same position
+ * gets the same key whichever of them it's on. Like BitBoards, this class is not to be instantiated. */
+public class Zobrist {
+
+	private static final long[][] PIECE_KEYS = new long[BitBoards.NUM_PIECE_BITBOARDS][BoardUtils.NUM_TILES];
+	private static final long[] CASTLING_KEYS = new long[CastlingRights.ALL + 1];
+	private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.TILES_IN_ROW];
+	private static final long BLACK_TO_MOVE_KEY;
+
+	// Seeded, so the keys (and anything built from them) are the same every time the game runs
+	private static long randomState = 0x9E3779B97F4A7C15L;
+
+	static {
+		for(int i = 0; i < BitBoards.NUM_PIECE_BITBOARDS; i++) {
+			for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+				PIECE_KEYS[i][tile] = nextRandom();
+			}
+		}
+		// The key for a set of castling rights is the keys of the single rights xor'ed together
+		final long[] rightKeys = {nextRandom(), nextRandom(), nextRandom(), nextRandom()};
+		for(int rights = 0; rights <= CastlingRights.ALL; rights++) {
+			for(int i = 0; i < rightKeys.length; i++) {
+				if((rights & (1 << i)) != 0) {
+					CASTLING_KEYS[rights] ^= rightKeys[i];
+				}
+			}
+		}
+		for(int file = 0; file < BoardUtils.TILES_IN_ROW; file++) {
+			EN_PASSANT_KEYS[file] = nextRandom();
+		}
+		BLACK_TO_MOVE_KEY = nextRandom();
+	}
+
+	private Zobrist() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	// The piece index is in the BitBoards.pieceIndex layout
+	public static long pieceKey(final int pieceIndex, final int tileCoordinate) {
+		return PIECE_KEYS[pieceIndex][tileCoordinate];
+	}
+
+	public static long castlingKey(final int castlingRights) {
+		return CASTLING_KEYS[castlingRights];
+	}
+
+	// Any tile in the column of the en passant pawn (or the tile it jumped over) will do, only the column is used
+	public static long enPassantKey(final int tileCoordinate) {
+		return EN_PASSANT_KEYS[tileCoordinate % BoardUtils.TILES_IN_ROW];
+	}
+
+	public static long blackToMoveKey() {
+		return BLACK_TO_MOVE_KEY;
+	}
+
+	private static long nextRandom() {
+		randomState ^= randomState >>> 12;
+		randomState ^= randomState << 25;
+		randomState ^= randomState >>> 27;
+		return randomState * 2685821657736338717L;
+	}
+}
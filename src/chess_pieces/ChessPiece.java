@@ -1,6 +1,7 @@
 package chess_pieces;
 
 import java.util.*;
+import board_construction.BitBoards;
 import board_construction.Board;
 
 
@@ -10,36 +11,14 @@ public abstract class ChessPiece {
 	protected final int piecePosition;
 	protected final PieceColour pieceColour;
 	protected final boolean isFirstMove;
-	private final int cachedHashCode; 
 	
+	/* Pieces are only ever created by the PieceCache, which creates each one exactly once. Two pieces are therefore
+	 * equal only if they're the same object, so equals() and hashCode() are left as Object's identity versions. */
 	ChessPiece(final PieceType pieceType, final int piecePosition, final PieceColour pieceColour, boolean isFirstMove) {
 		this.pieceType = pieceType;
 		this.piecePosition = piecePosition;
 		this.pieceColour = pieceColour;
 		this.isFirstMove = isFirstMove;
-		this.cachedHashCode = hashCode();
-	}
-	
-	// equals and hashCode overrides 
-	@Override public boolean equals(final Object other) {
-		if(this == other) {
-			return true;
-		}
-		if(!(other instanceof ChessPiece)) {
-			return false;
-		}
-		final ChessPiece otherPiece = (ChessPiece) other;
-		// The following returns the conditions required for pieces to be considered equals
-		return piecePosition == otherPiece.getPiecePosition() && pieceType == otherPiece.getPieceType() &&
-				pieceColour == otherPiece.getPieceColour() && isFirstMove == otherPiece.isFirstMove();
-	}
-	
-	@Override public int hashCode() {
-		int result = pieceType.hashCode();
-		result = 31 * result + pieceColour.hashCode();
-		result = 31 * result + piecePosition;
-		result = 31 * result + (isFirstMove ? 1 : 0);
-		return result;
 	}
 	
 	
@@ -68,6 +47,23 @@ public abstract class ChessPiece {
 	
 	public abstract ChessPiece movePiece(Move move);
 	
+	/* Given the set of tiles a piece attacks, as a bitboard, build the moves to each of them. Tiles holding one of our
+	 * own pieces are masked out first, an empty tile gives a NonTakingMove and an opposing piece a MajorTakingMove. */
+	protected Collection<Move> createMovesToTiles(final Board board, final long attackedTiles) {
+		final long destinations = attackedTiles & ~board.getOccupancy(this.pieceColour);
+		final List<Move> allowedMoves = new ArrayList<>(BitBoards.countTiles(destinations));
+		for(long tiles = destinations; tiles != BitBoards.EMPTY; tiles = BitBoards.popLowestTile(tiles)) {
+			final int potentialFinalCoord = BitBoards.lowestTile(tiles);
+			final ChessPiece pieceAtDestination = board.getPiece(potentialFinalCoord);
+			if(pieceAtDestination == null) {
+				allowedMoves.add(new Move.NonTakingMove(board, this, potentialFinalCoord));
+			} else {
+				allowedMoves.add(new Move.MajorTakingMove(board, this, potentialFinalCoord, pieceAtDestination));
+			}
+		}
+		return Collections.unmodifiableList(allowedMoves);
+	}
+	
 	
 	public enum PieceType {
 		
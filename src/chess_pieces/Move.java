@@ -1,34 +1,41 @@
 package chess_pieces;
 
 import board_construction.Board;
-import board_construction.Board.Builder;
 import board_construction.BoardUtils;
+import chess_pieces.ChessPiece.PieceType;
 
-public abstract class Move {
+/* A move is one class, told apart by its kind - the same kinds as a packed move uses (see PackedMove). Making a move
+ * on the board is a switch on the kind inside Move itself, so wherever moves are executed, compared or packed the
+ * call always lands on the same code and the JIT can inline it, rather than having to dispatch between a class for
+ * every sort of move.
+ *
+ * The classes below (NonTakingMove, PawnJumpMove, KingSideCastleMove and so on) are kept as the way to create each
+ * sort of move, and for anything which wants to tell them apart by type, but they only choose the kind. None of
+ * them changes how a move behaves. */
+public class Move {
+
+	private static final int NO_KIND = -1;
 
 	protected final Board board;
 	protected final ChessPiece movedPiece;
 	protected final int finalCoordinate;
-	protected final boolean isFirstMove;
+	protected final ChessPiece attackedPiece;
+	protected final int kind;
 	
 	public static final Move NULL_MOVE = new NullMove();
 	
-	private Move(final Board board, final ChessPiece pieceMoved, final int finalCoordinate) {
+	private Move(final Board board, final ChessPiece pieceMoved, final int finalCoordinate, 
+			final ChessPiece attackedPiece, final int kind) {
 		this.board = board;
 		this.movedPiece = pieceMoved;
 		this.finalCoordinate = finalCoordinate;
-		this.isFirstMove = pieceMoved.isFirstMove();
+		this.attackedPiece = attackedPiece;
+		this.kind = kind;
 	}
 	
-	private Move(final Board board, final int finalCoordinate) {
-		this.board = board;
-		this.finalCoordinate = finalCoordinate;
-		this.movedPiece = null;
-		this.isFirstMove = false;
-	}
-	
-	// equals and hashCode overrides 
-	@Override public boolean equals(final Object other) {
+	/* equals and hashCode overrides. Pieces are interned (see PieceCache), so the same piece on the same tile is
+	 * always the same object and pieces can be compared by identity */
+	@Override public final boolean equals(final Object other) {
 		if(this == other) {
 			return true;
 		}
@@ -37,120 +44,152 @@ public abstract class Move {
 		}
 		final Move otherMove = (Move) other;  // cast is fine, as checked above
 		// definition of an equals move 
-		return getCurrentCoordinate() == otherMove.getCurrentCoordinate() &&
-				getDestinationCoordinate() == otherMove.getDestinationCoordinate() &&
-				getMovedPiece().equals(otherMove.getMovedPiece());
+		return this.kind == otherMove.kind &&
+				getCurrentCoordinate() == otherMove.getCurrentCoordinate() &&
+				this.finalCoordinate == otherMove.finalCoordinate &&
+				this.movedPiece == otherMove.movedPiece &&
+				this.attackedPiece == otherMove.attackedPiece;
 	}
 	
-	@Override public int hashCode() {
-		int result = 1;
-		result = 31 + this.finalCoordinate;
-		result = 31 + this.movedPiece.hashCode();
-		result = 31 + this.movedPiece.getPiecePosition();
-		return result;		
+	/* Built from the tiles, packed as in PackedMove, and the moved piece. Equal moves have all of those in common,
+	 * and the piece's own hash can be used as equal pieces are the same object */
+	@Override public final int hashCode() {
+		final int tiles = (getCurrentCoordinate() & 0x3F) | (this.finalCoordinate & 0x3F) << 6;
+		return 31 * tiles + (this.movedPiece == null ? 0 : this.movedPiece.hashCode());
 	}
 	
-	public Board getBoard() {
+	public final Board getBoard() {
 		return this.board;
 	}
 	
-	public int getCurrentCoordinate() {
-		return this.movedPiece.getPiecePosition();
+	public final int getCurrentCoordinate() {
+		return this.movedPiece == null ? -1 : this.movedPiece.getPiecePosition();
 	}
 	
-	public int getDestinationCoordinate() {
+	public final int getDestinationCoordinate() {
 		return this.finalCoordinate;
 	}
 	
-	public ChessPiece getMovedPiece() {
+	public final ChessPiece getMovedPiece() {
 		return this.movedPiece;
 	}
 	
-	public boolean isAttacking() {
-		return false;
+	// The kind of move, one of the PackedMove kinds
+	public final int getKind() {
+		return this.kind;
+	}
+	
+	public final boolean isAttacking() {
+		return this.attackedPiece != null;
 	}
 	
-	public boolean isCastlingMove() {
-		return false;
+	public final boolean isCastlingMove() {
+		return this.kind == PackedMove.KING_SIDE_CASTLE || this.kind == PackedMove.QUEEN_SIDE_CASTLE;
 	}
 	
-	public ChessPiece getAttackedPiece() {
-		return null;
+	public final boolean isEnPassantMove() {
+		return this.kind == PackedMove.EN_PASSANT;
+	}
+	
+	public final ChessPiece getAttackedPiece() {
+		return this.attackedPiece;
+	}
+	
+	// The move packed into an int, for handing over to the search (see PackedMove)
+	public final int toPackedMove() {
+		return PackedMove.createMove(getCurrentCoordinate(), this.finalCoordinate, this.kind);
 	}
 	
 
-	public Board execute() {
-		final Board.Builder builder = new Board.Builder();
-		/* We now traverse through all of the current player's pieces and for all of the pieces that aren't 
-		 * the moved piece we simply place them on the new board - no change */
-		for(final ChessPiece piece : this.board.currentPlayer().getActivePiece()) {
-			if(!this.movedPiece.equals(piece)) {
-			builder.setPiece(piece);
-			}
-		}
-		/* We now do the same for the opposing pieces, clearly without the need for the if statement as
-		 * they don't have a moving piece   */
-		for(final ChessPiece piece : this.board.currentPlayer().getOpponent().getActivePiece()) {
-			builder.setPiece(piece);
+	/* Rather than placing every piece on a brand new board, the new board is derived from the current one by changing
+	 * only the tiles involved in the move (see Board.Derivation). The moved piece is lifted off its tile and placed on
+	 * the destination, which also removes any piece being taken there. Then we set move maker to opponent's pieces */
+	public final Board execute() {
+		if(this.kind == NO_KIND) {
+			throw new RuntimeException("cannot execute null move!");
 		}
-		// Now set the piece for the moving piece, to represent the move, then set move maker to opponent's pieces
-		builder.setPiece(this.movedPiece.movePiece(this));
-		builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColour());
-		return builder.build();  
+		final PieceColour colour = this.movedPiece.getPieceColour();
+		final Board.Derivation derivation = this.board.derive().removePiece(this.movedPiece.getPiecePosition());
+		if(this.attackedPiece != null || this.movedPiece.getPieceType() == PieceType.PAWN) {
+			derivation.resetHalfmoveClock();
+		}
+		switch(this.kind) {
+			case PackedMove.PAWN_JUMP: {
+				/* The pawn making the jump is set as the en passant pawn, as for the next move it can be taken 
+				 * en passant */
+				final Pawn movedPawn = (Pawn) PieceCache.get(PieceType.PAWN, colour, this.finalCoordinate, false);
+				derivation.setPiece(movedPawn).setEnPassantPawn(movedPawn);
+				break;
+			}
+			case PackedMove.EN_PASSANT:
+				// The taken pawn isn't on the destination tile, so it has to be removed from its own tile
+				derivation.removePiece(this.attackedPiece.getPiecePosition())
+						.setPiece(PieceCache.get(PieceType.PAWN, colour, this.finalCoordinate, false));
+				break;
+			case PackedMove.KING_SIDE_CASTLE:
+			case PackedMove.QUEEN_SIDE_CASTLE: {
+				// The rook starts in the corner and finishes on the tile the king passed over
+				final int kingTile = this.movedPiece.getPiecePosition();
+				final int rookTile = this.kind == PackedMove.KING_SIDE_CASTLE ? kingTile + 3 : kingTile - 4;
+				derivation.removePiece(rookTile)
+						.setPiece(PieceCache.get(PieceType.KING, colour, this.finalCoordinate, false))
+						.setPiece(PieceCache.get(PieceType.ROOK, colour, (kingTile + this.finalCoordinate) / 2, false));
+				break;
+			}
+			case PackedMove.QUEEN_PROMOTION:
+			case PackedMove.QUEEN_PROMOTION_CAPTURE:
+				// The promotion piece is placed straight onto the destination tile, taking anything that's there
+				derivation.setPiece(PieceCache.get(PieceType.QUEEN, colour, this.finalCoordinate, false));
+				break;
+			default:
+				derivation.setPiece(PieceCache.get(this.movedPiece.getPieceType(), colour, this.finalCoordinate, false));
+		}
+		return derivation.setMoveMaker(colour.getOpponent()).build();
+	}
+	
+	@Override public String toString() {
+		switch(this.kind) {
+			case NO_KIND:
+				return super.toString();
+			case PackedMove.KING_SIDE_CASTLE:
+				return "O-O";
+			case PackedMove.QUEEN_SIDE_CASTLE:
+				return "O-O-O";
+			case PackedMove.QUEEN_PROMOTION:
+			case PackedMove.QUEEN_PROMOTION_CAPTURE:
+				return "";
+			default:
+				break;
+		}
+		final String destination = BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
+		if(this.movedPiece.getPieceType() != PieceType.PAWN) {
+			return this.movedPiece.getPieceType() + destination;
+		}
+		return isAttacking() ? BoardUtils.getPositionAtCoordinate(getCurrentCoordinate()).substring(0, 1) + "x" + 
+				destination : destination;
 	}
 	
 	
-
 // ####################################################################################################################
-	/* Define a bunch of subclasses to handle different move mechanics */
+	/* Define a bunch of subclasses to handle different move mechanics. They only set up the kind of move, and the
+	 * piece taken if there is one */
 	
 	// Handle the NonTaking Moves of the Major Pieces 
 	public static class NonTakingMove extends Move {
-		
 		public NonTakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate) {
-			super(board, movedPiece, finalCoordinate);
-		        }
-		
-	      @Override public boolean equals(final Object other) {
-	            return this == other || other instanceof NonTakingMove && super.equals(other);
+			super(board, movedPiece, finalCoordinate, null, PackedMove.QUIET);
 		}
-	      //@Override public int hashCode() {
-	    	//  return super.hashCode();
-		//}
-	      
-	      @Override public String toString( ) {
-	    	  return movedPiece.getPieceType().toString() + BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
-	      }
 	}
 	
 	public static class TakingMove extends Move {
-		final ChessPiece takenPiece;
 		public TakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate, 
 				final ChessPiece takenPiece) {
-			super(board, movedPiece, finalCoordinate);
-			this.takenPiece = takenPiece;
-		}
-		
-		@Override public boolean equals(final Object other) {
-			if(this == other) {
-				return true;
-			}
-			if(!(other instanceof TakingMove)) {
-				return false;
-			}
-			final TakingMove otherTakingMove = (TakingMove) other;
-			return super.equals(otherTakingMove) && getAttackedPiece().equals(otherTakingMove.getAttackedPiece());
+			this(board, movedPiece, finalCoordinate, takenPiece, PackedMove.CAPTURE);
 		}
 		
-		@Override public int hashCode() {
-			return this.takenPiece.hashCode() + super.hashCode();
-		}
-		
-		@Override public boolean isAttacking() {
-			return true;
-		}
-		@Override public ChessPiece getAttackedPiece() {
-			return this.takenPiece;
+		TakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate, 
+				final ChessPiece takenPiece, final int kind) {
+			super(board, movedPiece, finalCoordinate, takenPiece, kind);
 		}
 	}
 	
@@ -160,244 +199,84 @@ public abstract class Move {
 				final ChessPiece takenPiece) {
 			super(board, movedPiece, finalCoordinate, takenPiece);
 		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof MajorTakingMove && super.equals(other);
-		}
-		
-		@Override public String toString() {
-			return movedPiece.getPieceType() + BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
-		}
 	}
 	
 	
     /* Moves relevant to pawns */
 	public static final class PawnMove extends Move {
-		
 		public PawnMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate) {
-			super(board, movedPiece, finalCoordinate);
-		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof PawnMove && super.equals(other);
-		}
-		
-		@Override public String toString() {
-			return BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
+			super(board, movedPiece, finalCoordinate, null, PackedMove.QUIET);
 		}
 	}
 	
 	
 	public static class PawnTakingMove extends TakingMove {
-		
 		public PawnTakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
 				final ChessPiece takenPiece) {
 			super(board, movedPiece, finalCoordinate, takenPiece);
 		}
 		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof PawnTakingMove && super.equals(other);
-		}
-		
-		@Override public String toString() {
-			return BoardUtils.getPositionAtCoordinate(this.movedPiece.getPiecePosition()).substring(0, 1) + "x" +
-						BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
+		PawnTakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
+				final ChessPiece takenPiece, final int kind) {
+			super(board, movedPiece, finalCoordinate, takenPiece, kind);
 		}
 	}
 	
 	
+	// A pawn move (or take) onto the last row, where the pawn becomes a queen (see Pawn.getPromotionPiece())
 	public static class PawnPromotion extends Move {
-		
-	final Move decoratedMove;
-	final Pawn promotedPawn;
-	
-		public PawnPromotion(final Move decoratedMove) {
-			super(decoratedMove.getBoard(), decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
-			this.decoratedMove = decoratedMove;
-			this.promotedPawn = (Pawn) decoratedMove.getMovedPiece();
-		}
-		
-		@Override public Board execute() {
-			final Board pawnMoveBoard = this.decoratedMove.execute();
-			final Board.Builder builder = new Builder();
-            pawnMoveBoard.currentPlayer().getActivePiece().stream().filter(
-            		piece -> !this.promotedPawn.equals(piece)).forEach(builder::setPiece);
-            pawnMoveBoard.currentPlayer().getOpponent().getActivePiece().forEach(builder::setPiece);
-            builder.setPiece(this.promotedPawn.getPromotionPiece().movePiece(this));
-            builder.setMoveMaker(pawnMoveBoard.currentPlayer().getColour());
-            return builder.build();
-		}
-		
-		@Override public boolean isAttacking() {
-			return this.decoratedMove.isAttacking();
-		}
-		
-		@Override public ChessPiece getAttackedPiece() {
-			return this.decoratedMove.getAttackedPiece();
-		}
-		
-		@Override public String toString() {
-			return "";
-		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof PawnPromotion && (super.equals(other));
-		}
-		
-		@Override public int hashCode() {
-			return decoratedMove.hashCode() + (31 * promotedPawn.hashCode());
+		public PawnPromotion(final Move pawnMove) {
+			super(pawnMove.getBoard(), pawnMove.getMovedPiece(), pawnMove.getDestinationCoordinate(), 
+					pawnMove.getAttackedPiece(), 
+					pawnMove.isAttacking() ? PackedMove.QUEEN_PROMOTION_CAPTURE : PackedMove.QUEEN_PROMOTION);
 		}
 	}
 	
 	
 	public static final class PawnEnPassantTakingMove extends PawnTakingMove {
-		
 		public PawnEnPassantTakingMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
 				final ChessPiece takenPiece) {
-			super(board, movedPiece, finalCoordinate, takenPiece);
-		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof PawnEnPassantTakingMove && super.equals(other);
-		}
-		
-		@Override public Board execute() {
-			final Builder builder = new Builder();
-			for(final ChessPiece piece : this.board.currentPlayer().getActivePiece()) {
-				if(!this.movedPiece.equals(piece)) {
-					builder.setPiece(piece);
-				}
-			}
-			for(final ChessPiece piece : this.board.currentPlayer().getOpponent().getActivePiece()) {
-				if(!piece.equals(this.getAttackedPiece())) {
-				builder.setPiece(piece);
-				}
-			}
-			builder.setPiece(this.movedPiece.movePiece(this));
-			builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColour());
-			return builder.build();
-			}
+			super(board, movedPiece, finalCoordinate, takenPiece, PackedMove.EN_PASSANT);
 		}
+	}
 	
 	
 	public static final class PawnJumpMove extends Move {
-		
 		public PawnJumpMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate) {
-			super(board, movedPiece, finalCoordinate);
-		}
-		
-		@Override public Board execute() {
-			final Builder builder = new Builder();
-			for(final ChessPiece piece : this.board.currentPlayer().getActivePiece()) {
-				if(!this.movedPiece.equals(piece)) {
-					builder.setPiece(piece);
-				}
-			}
-			for(final ChessPiece piece : this.board.currentPlayer().getOpponent().getActivePiece()) {
-				builder.setPiece(piece);
-			}
-			final Pawn movedPawn = (Pawn)this.movedPiece.movePiece(this);
-			/* Main difference in this execute method compared to that of a standard move is setting the 
-			 * EnPassent, which is a possible taking moving during a pawn jump. We set current pawn that's 
-			 * making the jump as the EnPassent Pawn */
-			builder.setPiece(movedPawn);
-			builder.setEnPassentPawn(movedPawn);
-			builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColour());
-			return builder.build();
-		}
-		
-		@Override public String toString() {
-			return BoardUtils.getPositionAtCoordinate(this.finalCoordinate);
+			super(board, movedPiece, finalCoordinate, null, PackedMove.PAWN_JUMP);
 		}
 	}
 	
 	
-	/* Moves relevant to castling */
+	/* Moves relevant to castling. The king moves two tiles towards the rook it castles with, so the direction it 
+	 * moves in tells us which side it is */
 	static abstract class CastleMove extends Move {
 		protected final Rook castleRook;
-		protected final int castleRookStart;
-		protected final int castleRookDestination;
 		
-		public CastleMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
-				final Rook castleRook, final int castleRookStart, final int castleRookDestination) {
-			super(board, movedPiece, finalCoordinate);
+		CastleMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate, final Rook castleRook) {
+			super(board, movedPiece, finalCoordinate, null, finalCoordinate > movedPiece.getPiecePosition() ? 
+					PackedMove.KING_SIDE_CASTLE : PackedMove.QUEEN_SIDE_CASTLE);
 			this.castleRook = castleRook;
-			this.castleRookStart = castleRookStart;
-			this.castleRookDestination = castleRookDestination;
 		}
 		
 		public Rook getCastleRook() {
 			return this.castleRook;
 		}
-		
-		@Override public boolean isCastlingMove() {
-			return true;
-		}
-		
-		@Override public boolean equals(final Object other) {
-			if(this == other) {
-				return true;
-			}
-			if(!(other instanceof CastleMove)) {
-				return false;
-			}
-			final CastleMove otherCastleMove = (CastleMove)other;
-			return super.equals(otherCastleMove) && this.castleRook.equals(otherCastleMove.getCastleRook());
-		}
-		
-		@Override public int hashCode() {
-			int result = super.hashCode();
-			result = 31*result + this.castleRook.hashCode();
-			result = 31 * result + this.castleRookDestination;
-			return result;
-		}
-		
-		@Override public Board execute() {
-			final Builder builder = new Builder();
-			for(final ChessPiece piece : this.board.currentPlayer().getActivePiece()) {
-				if(!this.movedPiece.equals(piece) && !this.castleRook.equals(piece)) {
-					builder.setPiece(piece);
-				}
-			}
-			for(final ChessPiece piece : this.board.currentPlayer().getOpponent().getActivePiece()) {
-				builder.setPiece(piece);
-			}
-			builder.setPiece(this.movedPiece.movePiece(this));
-			builder.setPiece(new Rook(this.castleRook.getPieceColour(), this.castleRookDestination));
-			builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColour());
-			return builder.build();
-		}
 	}
 	
 	
 	public static final class KingSideCastleMove extends CastleMove {
 		public KingSideCastleMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
-				final Rook castleRook, final int castleRookStart, final int castleRookDestination) {
-			super(board, movedPiece, finalCoordinate, castleRook, castleRookStart, castleRookDestination);
-		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof KingSideCastleMove && super.equals(other);
-		}
-		
-		@Override public String toString() {
-			return "O-O";
+				final Rook castleRook) {
+			super(board, movedPiece, finalCoordinate, castleRook);
 		}
 	}
 	
 	
 	public static final class QueenSideCastleMove extends CastleMove {
 		public QueenSideCastleMove(final Board board, final ChessPiece movedPiece, final int finalCoordinate,
-				final Rook castleRook, final int castleRookStart, final int castleRookDestination) {
-			super(board, movedPiece, finalCoordinate, castleRook, castleRookStart, castleRookDestination);
-		}
-		
-		@Override public boolean equals(final Object other) {
-			return this == other || other instanceof QueenSideCastleMove && super.equals(other);
-		}
-		
-		@Override public String toString() {
-			return "O-O-O";
+				final Rook castleRook) {
+			super(board, movedPiece, finalCoordinate, castleRook);
 		}
 	}
 	
@@ -405,13 +284,7 @@ public abstract class Move {
 	/* Handle "null moves", for example clicking same place multiple times */
 	public static final class NullMove extends Move {
 		public NullMove() {
-			super(null, -1);    // -1 as this represents a tile than can't be reached 
-			}
-		@Override public Board execute() {
-			throw new RuntimeException("cannot execute null move!");
-		}
-		@Override public int getCurrentCoordinate() {
-			return -1;
+			super(null, null, -1, null, NO_KIND);    // -1 as this represents a tile than can't be reached 
 		}
 	}
 	
@@ -420,13 +293,17 @@ public abstract class Move {
 		private MoveFactory() {
 			throw new RuntimeException("Not to be instantiated!");
 		}
+		/* The move between the two tiles for the player whose turn it is, or the null move if they have no such 
+		 * move. The player keeps its moves indexed by tile, so this doesn't search through every move on the board */
 		public static Move createMove(final Board board, final int currentCoordinate, final int finalCoordinate) {
-			for(final Move move : board.getAllAllowedMoves()) {
-				if(move.getCurrentCoordinate() == currentCoordinate && move.getDestinationCoordinate() == finalCoordinate) {
-					return move;
-				}
+			return board.currentPlayer().findAllowedMove(currentCoordinate, finalCoordinate);
+		}
+		// Turns a move packed by the search back into the matching Move on the board it was generated for
+		public static Move createMove(final Board board, final int packedMove) {
+			if(packedMove == PackedMove.NO_MOVE) {
+				return NULL_MOVE;
 			}
-			return NULL_MOVE;
+			return createMove(board, PackedMove.getSourceTile(packedMove), PackedMove.getDestinationTile(packedMove));
 		}
 	}
 }
@@ -0,0 +1,75 @@
+package chess_pieces;
+
+import board_construction.BoardUtils;
+import chess_pieces.ChessPiece.PieceType;
+
+/* A move packed into the low 16 bits of an int, for the places where creating a Move object for every move would
+ * cost too much (the search generates millions of them). The source tile is held in bits 0-5, the destination tile
+ * in bits 6-11 and the kind of move in bits 12-15. A packed move says nothing about which pieces are involved, so
+ * it only means something alongside the board it was generated for.
+ *
+ * The kinds use single bits for capture and promotion, so those can be tested with a mask. For a promotion, the
+ * lowest two bits of the kind give the piece promoted to: knight, bishop, rook or queen.
+ *
+ * Use Move.toPackedMove() and MoveFactory.createMove(Board, int) to convert to and from Move objects. Like
+ * BitBoards, this class is not to be instantiated. */
+public class PackedMove {
+
+	public static final int NO_MOVE = 0;
+
+	public static final int QUIET = 0;
+	public static final int PAWN_JUMP = 1;
+	public static final int KING_SIDE_CASTLE = 2;
+	public static final int QUEEN_SIDE_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int PROMOTION = 8;
+	public static final int PROMOTION_CAPTURE = 12;
+
+	// The pieces only ever promote to a queen (see Pawn.getPromotionPiece())
+	public static final int QUEEN_PROMOTION = PROMOTION | 3;
+	public static final int QUEEN_PROMOTION_CAPTURE = PROMOTION_CAPTURE | 3;
+
+	private PackedMove() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	public static int createMove(final int sourceTile, final int destinationTile, final int kind) {
+		return sourceTile | (destinationTile << 6) | (kind << 12);
+	}
+
+	public static int getSourceTile(final int move) {
+		return move & 63;
+	}
+
+	public static int getDestinationTile(final int move) {
+		return (move >>> 6) & 63;
+	}
+
+	public static int getKind(final int move) {
+		return (move >>> 12) & 15;
+	}
+
+	public static boolean isCapture(final int move) {
+		return (getKind(move) & CAPTURE) != 0;
+	}
+
+	public static boolean isPromotion(final int move) {
+		return (getKind(move) & PROMOTION) != 0;
+	}
+
+	public static boolean isCastle(final int move) {
+		return getKind(move) == KING_SIDE_CASTLE || getKind(move) == QUEEN_SIDE_CASTLE;
+	}
+
+	// Only meaningful for promotions, the piece types are declared knight, bishop, rook then queen
+	public static PieceType getPromotionPieceType(final int move) {
+		return PieceType.values()[PieceType.KNIGHT.ordinal() + (getKind(move) & 3)];
+	}
+
+	// Prints the move as its source and destination tiles, e.g. e2e4
+	public static String toString(final int move) {
+		return BoardUtils.getPositionAtCoordinate(getSourceTile(move)) +
+				BoardUtils.getPositionAtCoordinate(getDestinationTile(move));
+	}
+}
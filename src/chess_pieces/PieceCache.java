@@ -0,0 +1,69 @@
+package chess_pieces;
+
+import board_construction.BitBoards;
+import board_construction.BoardUtils;
+import chess_pieces.ChessPiece.PieceType;
+
+/* Pieces are immutable, and a piece is nothing more than its type, colour, tile and whether it has moved yet. That
+ * only makes 6 x 2 x 64 x 2 different pieces, so every one of them is created once here when the class is loaded and
+ * handed out from then on. Moving a piece is then just a lookup (see ChessPiece.movePiece()) rather than a new
+ * object, and as there's only ever one instance of each piece, pieces can be compared by identity.
+ *
+ * This is the only place pieces are created. Like BitBoards, this class is not to be instantiated. */
+public class PieceCache {
+
+	private static final ChessPiece[] PIECES = initialisePieces();
+
+	private PieceCache() {
+		throw new RuntimeException("This class shouldn't be instantiated");
+	}
+
+	// A piece which hasn't moved yet, as placed on the board at the start of a game
+	public static ChessPiece get(final PieceType pieceType, final PieceColour pieceColour, final int piecePosition) {
+		return get(pieceType, pieceColour, piecePosition, true);
+	}
+
+	public static ChessPiece get(final PieceType pieceType, final PieceColour pieceColour, final int piecePosition,
+			final boolean isFirstMove) {
+		return PIECES[index(BitBoards.pieceIndex(pieceType, pieceColour), piecePosition, isFirstMove)];
+	}
+
+	private static int index(final int pieceIndex, final int piecePosition, final boolean isFirstMove) {
+		return (pieceIndex * BoardUtils.NUM_TILES + piecePosition) * 2 + (isFirstMove ? 1 : 0);
+	}
+
+	private static ChessPiece[] initialisePieces() {
+		final ChessPiece[] pieces = new ChessPiece[BitBoards.NUM_PIECE_BITBOARDS * BoardUtils.NUM_TILES * 2];
+		for(final PieceColour pieceColour : PieceColour.values()) {
+			for(final PieceType pieceType : PieceType.values()) {
+				for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+					for(final boolean isFirstMove : new boolean[] {false, true}) {
+						pieces[index(BitBoards.pieceIndex(pieceType, pieceColour), i, isFirstMove)] =
+								createPiece(pieceType, pieceColour, i, isFirstMove);
+					}
+				}
+			}
+		}
+		return pieces;
+	}
+
+	private static ChessPiece createPiece(final PieceType pieceType, final PieceColour pieceColour,
+			final int piecePosition, final boolean isFirstMove) {
+		switch(pieceType) {
+			case PAWN:
+				return new Pawn(pieceColour, piecePosition, isFirstMove);
+			case KNIGHT:
+				return new Knight(pieceColour, piecePosition, isFirstMove);
+			case BISHOP:
+				return new Bishop(pieceColour, piecePosition, isFirstMove);
+			case ROOK:
+				return new Rook(pieceColour, piecePosition, isFirstMove);
+			case QUEEN:
+				return new Queen(pieceColour, piecePosition, isFirstMove);
+			case KING:
+				return new King(pieceColour, piecePosition, isFirstMove);
+			default:
+				throw new RuntimeException("Unknown piece type " + pieceType);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package chess_pieces;
 
-import board_construction.BoardUtils;
+import board_construction.BitBoards;
 import player.BlackPlayer;
 import player.Player;
 import player.WhitePlayer;
@@ -22,8 +22,11 @@ public enum PieceColour {
 		@Override public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
 			return whitePlayer;
 		}
+		@Override public PieceColour getOpponent() {
+			return BLACK;
+		}
 		@Override public boolean isPawnPromotionSquare(int pos) {
-			return BoardUtils.EIGHTH_RANK.get(pos);
+			return BitBoards.isTileSet(BitBoards.FIRST_RANK, pos);
 		}
 		@Override public String toString() {
 			return "White";
@@ -44,9 +47,12 @@ public enum PieceColour {
 		public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
 			return blackPlayer;
 		}
+		@Override public PieceColour getOpponent() {
+			return WHITE;
+		}
 		@Override
 		public boolean isPawnPromotionSquare(int pos) {
-			return BoardUtils.FIRST_RANK.get(pos);
+			return BitBoards.isTileSet(BitBoards.EIGHTH_RANK, pos);
 		}
 		@Override public String toString() {
 			return "Black";
@@ -61,5 +67,7 @@ public enum PieceColour {
 
 	public abstract Player choosePlayer(WhitePlayer whitePlayer, BlackPlayer blackPlayer);
 	
+	public abstract PieceColour getOpponent();
+	
 	public abstract boolean isPawnPromotionSquare(int pos);
 }
@@ -16,6 +16,7 @@ import javax.swing.table.DefaultTableModel;
 import board_construction.Board;
 import chess_pieces.Move;
 import gui.Table.MoveLog;
+import player.GameStatus;
 
 /* Class for logging and displaying move history. This is relatively uninteresting and uses basic JTable theory,
  * for those unfamiliar I would recommend - Java Swing (GUI) Programming: From Beginner to Expert by John Purcell 
@@ -67,9 +68,10 @@ public class GameHistoryPanel extends JPanel {
 	}
 	
 	private String calculateCheckAndCheckMateHash(final Board board) {
-		if(board.currentPlayer().isInCheckMate()) {
+		final GameStatus gameStatus = board.currentPlayer().getGameStatus();
+		if(gameStatus == GameStatus.CHECKMATE) {
 			return "#";
-		} else if(board.currentPlayer().isInCheck()) {
+		} else if(gameStatus.isInCheck()) {
 			return "+";
 		}
 		return "";
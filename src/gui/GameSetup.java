@@ -2,6 +2,11 @@ package gui;
 
 import javax.swing.*;
 
+import ai.AlphaBeta;
+import ai.IterativeDeepening;
+import ai.MiniMax;
+import ai.MoveTheory;
+import ai.TranspositionTable;
 import chess_pieces.PieceColour;
 import gui.Table.PlayerType;
 import player.Player;
@@ -17,9 +22,17 @@ class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner moveTimeSpinner;
+    private boolean useAlphaBeta;
+    // Kept for the whole game, so what was found while searching one move helps with the next
+    private final TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_IN_MB);
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
+    private static final String MINIMAX_TEXT = "MiniMax";
+    private static final String ALPHA_BETA_TEXT = "Alpha-Beta";
+    // MiniMax looks at every position, so much deeper than this and a move takes minutes
+    private static final int MAX_MINIMAX_DEPTH = 4;
 
     GameSetup(final JFrame frame,
               final boolean modal) {
@@ -48,9 +61,37 @@ class GameSetup extends JDialog {
         myPanel.add(blackHumanButton);
         myPanel.add(blackComputerButton);
 
+        final JRadioButton miniMaxButton = new JRadioButton(MINIMAX_TEXT);
+        final JRadioButton alphaBetaButton = new JRadioButton(ALPHA_BETA_TEXT);
+        final ButtonGroup searchGroup = new ButtonGroup();
+        searchGroup.add(miniMaxButton);
+        searchGroup.add(alphaBetaButton);
+        alphaBetaButton.setSelected(true);
+        this.useAlphaBeta = true;
+
         myPanel.add(new JLabel("Search"));
-        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", 
-        		new SpinnerNumberModel(6, 0, Integer.MAX_VALUE, 1));
+        myPanel.add(miniMaxButton);
+        myPanel.add(alphaBetaButton);
+        final SpinnerNumberModel searchDepthModel = new SpinnerNumberModel(6, 1, AlphaBeta.MAX_DEPTH, 1);
+        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", searchDepthModel);
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Seconds Per Move (0 = no limit)", 
+        		new SpinnerNumberModel(5, 0, Integer.MAX_VALUE, 1));
+
+        // The depth can only go as high as the chosen search can manage
+        final ActionListener searchListener = new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if(miniMaxButton.isSelected()) {
+                    searchDepthModel.setMaximum(MAX_MINIMAX_DEPTH);
+                    if((Integer)searchDepthModel.getValue() > MAX_MINIMAX_DEPTH) {
+                        searchDepthModel.setValue(MAX_MINIMAX_DEPTH);
+                    }
+                } else {
+                    searchDepthModel.setMaximum(AlphaBeta.MAX_DEPTH);
+                }
+            }
+        };
+        miniMaxButton.addActionListener(searchListener);
+        alphaBetaButton.addActionListener(searchListener);
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -59,6 +100,7 @@ class GameSetup extends JDialog {
             public void actionPerformed(ActionEvent e) {
                 whitePlayerType = whiteComputerButton.isSelected() ? PlayerType.COMPUTER : PlayerType.HUMAN;
                 blackPlayerType = blackComputerButton.isSelected() ? PlayerType.COMPUTER : PlayerType.HUMAN;
+                useAlphaBeta = alphaBetaButton.isSelected();
                 GameSetup.this.setVisible(false);
             }
         });
@@ -112,4 +154,19 @@ class GameSetup extends JDialog {
     int getSearchDepth() {
         return (Integer)this.searchDepthSpinner.getValue();
     }
+
+    int getSecondsPerMove() {
+        return (Integer)this.moveTimeSpinner.getValue();
+    }
+
+    /* A new search each time, set up with the chosen algorithm and depth. With a time limit alpha-beta deepens
+     * until the time is up, and the search depth is only the deepest it will go */
+    MoveTheory createMoveTheory() {
+        if(!this.useAlphaBeta) {
+            return new MiniMax(Math.min(getSearchDepth(), MAX_MINIMAX_DEPTH));
+        }
+        return getSecondsPerMove() > 0 ?
+                new IterativeDeepening(getSecondsPerMove() * 1000L, getSearchDepth(), this.transpositionTable) :
+                new AlphaBeta(getSearchDepth(), this.transpositionTable);
+    }
 }
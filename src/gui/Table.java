@@ -23,7 +23,6 @@ import javax.swing.*;
 
 import com.google.common.collect.Lists;
 
-import ai.MiniMax;
 import ai.MoveTheory;
 
 import static javax.swing.SwingUtilities.isRightMouseButton;
@@ -35,6 +34,7 @@ import board_construction.BoardUtils;
 import board_construction.ChessTile;
 import chess_pieces.ChessPiece;
 import chess_pieces.Move;
+import player.GameStatus;
 
 
 @SuppressWarnings("deprecation") // For the purpose of this exercise using Observable is fine 
@@ -191,19 +191,19 @@ public final class Table extends Observable {
 	
 	private static class TableGameAIWatcher implements Observer {
 		@Override public void update(final Observable o, final Object arg) {
+			final GameStatus gameStatus = Table.get().getGameBoard().currentPlayer().getGameStatus();
 			if(Table.get().getGameSetup().isAIPlayer(Table.get().getGameBoard().currentPlayer()) &&
-					!Table.get().getGameBoard().currentPlayer().isInCheckMate() && 
-					!Table.get().getGameBoard().currentPlayer().isInStalemate()) {
+					!gameStatus.isGameOver()) {
 				//create AI thread
 				//execute ai work
 				final AIThinkTank thinkTank = new AIThinkTank();
 				thinkTank.execute();
 			}
 			
-			if(Table.get().getGameBoard().currentPlayer().isInCheckMate()) {
+			if(gameStatus == GameStatus.CHECKMATE) {
 				System.out.println("game over, " + Table.get().getGameBoard().currentPlayer() + " is in checkmate!");
 			}
-			if(Table.get().getGameBoard().currentPlayer().isInStalemate()) {
+			if(gameStatus == GameStatus.STALEMATE) {
 				System.out.println("game over, " + Table.get().getGameBoard().currentPlayer() + " is in stalemate!");
 			}
 		}
@@ -245,10 +245,9 @@ public final class Table extends Observable {
 		}
 		
 		@Override protected Move doInBackground() throws Exception {
-			// This following, important code utilises the minmax code which influences the ai - see ai package
-			int depthLim = 4;
-			final MoveTheory miniMax = new MiniMax(depthLim);
-			final Move bestMove = miniMax.execute(Table.get().getGameBoard());
+			// This following, important code utilises the search chosen in the game setup - see ai package
+			final MoveTheory moveTheory = Table.get().getGameSetup().createMoveTheory();
+			final Move bestMove = moveTheory.execute(Table.get().getGameBoard());
 			return bestMove;
 		}
 		@Override public void done() {
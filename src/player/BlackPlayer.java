@@ -5,8 +5,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import board_construction.AttackTables;
 import board_construction.Board;
-import board_construction.ChessTile;
+import board_construction.CastlingRights;
 import chess_pieces.ChessPiece;
 import chess_pieces.Move;
 import chess_pieces.PieceColour;
@@ -14,8 +15,8 @@ import chess_pieces.Rook;
 
 public class BlackPlayer extends Player {
 
-	public BlackPlayer(Board board, Collection<Move> whiteAllowedMoves, Collection<Move> blackAllowedMoves) {
-		super(board, blackAllowedMoves, whiteAllowedMoves);
+	public BlackPlayer(final Board board) {
+		super(board);
 	}
 	
 	@Override public Collection<ChessPiece> getActivePiece() {
@@ -34,41 +35,27 @@ public class BlackPlayer extends Player {
 		return PieceColour.BLACK.toString();
 	}
 	
+	/* The castling rights say whether the king and the rook have both stayed where they started, so all that's left
+	 * to check is that the tiles between them are empty, and that the king isn't in check and doesn't pass over or
+	 * land on an attacked tile */
 	@Override
-	protected Collection<Move> calculateCastles(Collection<Move> playersAllowed, Collection<Move> opponentsAllowed) {
-		final List<Move> castles = new ArrayList<>();
-		
-		// make required checks involved in castling  
-		if(this.playersKing.isFirstMove() && !this.isInCheck()) {
-			// king side castle - checking rook positions 
-			if(!this.board.getTile(5).isTileOccupied() && !this.board.getTile(6).isTileOccupied()) {
-				final ChessTile rookTile = this.board.getTile(7);
-				// make sure rook has not moved
-				if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-					// check for attacks on tiles which disallow castling 
-					if(Player.calculateAttacksOnTile(5, opponentsAllowed).isEmpty() &&
-							Player.calculateAttacksOnTile(6, opponentsAllowed).isEmpty() && 
-							rookTile.getPiece().getPieceType().isRook()) {
-						
-						castles.add(new Move.KingSideCastleMove(this.board, this.playersKing, 6, 
-								(Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 5));
-					}
-				}
-			}
-			// queen side castle
-			if(!this.board.getTile(1).isTileOccupied() && !this.board.getTile(2).isTileOccupied() &&
-					!this.board.getTile(3).isTileOccupied()) {
-				final ChessTile rookTile = this.board.getTile(0);
-				if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-					if(Player.calculateAttacksOnTile(2, opponentsAllowed).isEmpty() && 
-							Player.calculateAttacksOnTile(3, opponentsAllowed).isEmpty() && 
-							rookTile.getPiece().getPieceType().isRook()) {
-					
-					castles.add(new Move.KingSideCastleMove(this.board, this.playersKing, 2, 
-							(Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 3));
-					}
-				}
-			}
+	protected Collection<Move> calculateCastles() {
+		final int castlingRights = this.board.getCastlingRights();
+		if((castlingRights & (CastlingRights.BLACK_KING_SIDE | CastlingRights.BLACK_QUEEN_SIDE)) == 0 || 
+				this.isInCheck()) {
+			return Collections.emptyList();
+		}
+		final List<Move> castles = new ArrayList<>(2);
+		final long occupancy = this.board.getAllOccupancy();
+		if((castlingRights & CastlingRights.BLACK_KING_SIDE) != 0 && (occupancy & AttackTables.between(4, 7)) == 0 &&
+				!isTileAttackedByOpponent(5) && !isTileAttackedByOpponent(6)) {
+			castles.add(new Move.KingSideCastleMove(this.board, this.playersKing, 6, 
+					(Rook) this.board.getPiece(7)));
+		}
+		if((castlingRights & CastlingRights.BLACK_QUEEN_SIDE) != 0 && (occupancy & AttackTables.between(4, 0)) == 0 &&
+				!isTileAttackedByOpponent(3) && !isTileAttackedByOpponent(2)) {
+			castles.add(new Move.QueenSideCastleMove(this.board, this.playersKing, 2, 
+					(Rook) this.board.getPiece(0)));
 		}
 		return Collections.unmodifiableList(castles);
 	}
@@ -0,0 +1,58 @@
+package player;
+
+/* The state of the game for the player whose turn it is. It only depends on whether the player is in check and
+ * whether they have any legal moves, so it can be worked out once for a position and then kept. */
+public enum GameStatus {
+
+	IN_PLAY {
+		@Override
+		public boolean isInCheck() {
+			return false;
+		}
+		@Override
+		public boolean isGameOver() {
+			return false;
+		}
+	},
+	CHECK {
+		@Override
+		public boolean isInCheck() {
+			return true;
+		}
+		@Override
+		public boolean isGameOver() {
+			return false;
+		}
+	},
+	CHECKMATE {
+		@Override
+		public boolean isInCheck() {
+			return true;
+		}
+		@Override
+		public boolean isGameOver() {
+			return true;
+		}
+	},
+	STALEMATE {
+		@Override
+		public boolean isInCheck() {
+			return false;
+		}
+		@Override
+		public boolean isGameOver() {
+			return true;
+		}
+	};
+
+	public abstract boolean isInCheck();
+	public abstract boolean isGameOver();
+
+	public static GameStatus of(final boolean isInCheck, final boolean hasLegalMoves) {
+		if(hasLegalMoves) {
+			return isInCheck ? CHECK : IN_PLAY;
+		}
+		return isInCheck ? CHECKMATE : STALEMATE;
+	}
+
+}
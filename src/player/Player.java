@@ -5,8 +5,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import board_construction.BitBoards;
 import board_construction.Board;
 import board_construction.BoardTransform;
+import board_construction.BoardUtils;
+import board_construction.KingSafety;
 import chess_pieces.ChessPiece;
 import chess_pieces.King;
 import chess_pieces.Move;
@@ -17,51 +20,112 @@ public abstract class Player {
 
 	protected final Board board;
 	protected final King playersKing;
-	protected final Collection<Move> allowedMoves;
-	protected final boolean isInCheck;
 	
-	Player(final Board board, final Collection<Move> allowedMoves, final Collection<Move> opponentMoves) {
+	private static final Move[] NO_MOVES = new Move[0];
+	
+	/* The allowed moves and check status are worked out the first time they are asked for, rather than when the 
+	 * player is created, so a board which is only looked at briefly doesn't pay for them (see Board.getPieceMoves) */
+	private volatile Collection<Move> allowedMoves;
+	private volatile long[] allowedDestinations;
+	private volatile Move[][] allowedMovesBySource;
+	private volatile Boolean isInCheck;
+	private volatile GameStatus gameStatus;
+	
+	Player(final Board board) {
 		this.board = board;
 		this.playersKing = establishKing();
-		/* What the following says is that - does the opponents moves attack the current plays kings position,
-		 * and get all those different attacks. If that is not empty, e.g there is a move which attacks the king,
-		 * that means that current player is in check.   */
-		this.isInCheck = !(Player.calculateAttacksOnTile(this.playersKing.getPiecePosition(), opponentMoves).isEmpty());
-		allowedMoves.addAll(calculateCastles(allowedMoves, opponentMoves));
-		this.allowedMoves =  Collections.unmodifiableCollection(allowedMoves);
 	}
 	
 	public King getPlayerKing() {
 		return this.playersKing;
 	}
 	
+	/* The allowed moves are strictly legal - a move which would leave the king in check is never included. Rather
+	 * than making each move and looking for attacks on the king on the new board, the checks and pins against our 
+	 * king are worked out once (see KingSafety) and each move is tested against them. */
 	public Collection<Move> getAllowedMoves() {
-		return this.allowedMoves;
+		Collection<Move> moves = this.allowedMoves;
+		if(moves == null) {
+			final KingSafety kingSafety = this.board.getKingSafety(getColour());
+			final Collection<Move> pieceMoves = kingSafety.isInCheck() ? calculateEvasionMoves(kingSafety) : 
+					this.board.getPieceMoves(getColour());
+			final List<Move> allowed = new ArrayList<>(pieceMoves.size());
+			final long[] destinations = new long[BoardUtils.NUM_TILES];
+			for(final Move move : pieceMoves) {
+				if(kingSafety.isLegalMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(), 
+						move.getMovedPiece().getPieceType().isKing(), move.isEnPassantMove())) {
+					allowed.add(move);
+					destinations[move.getCurrentCoordinate()] |= 1L << move.getDestinationCoordinate();
+				}
+			}
+			for(final Move castle : calculateCastles()) {
+				allowed.add(castle);
+				destinations[castle.getCurrentCoordinate()] |= 1L << castle.getDestinationCoordinate();
+			}
+			this.allowedDestinations = destinations;
+			moves = Collections.unmodifiableList(allowed);
+			this.allowedMoves = moves;
+		}
+		return moves;
 	}
 	
+	/* In check, the king and the few pieces which could take the checker or block its line are the only pieces 
+	 * which can have an allowed move, so only their moves are generated */
+	private Collection<Move> calculateEvasionMoves(final KingSafety kingSafety) {
+		final List<Move> moves = new ArrayList<>(this.playersKing.determineAllowedMoves(this.board));
+		for(long pieces = kingSafety.getEvasionPieces(); pieces != 0; pieces = BitBoards.popLowestTile(pieces)) {
+			moves.addAll(this.board.getPiece(BitBoards.lowestTile(pieces)).determineAllowedMoves(this.board));
+		}
+		return moves;
+	}
 	
-	protected static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> moves) {
-		final List<Move> attackMoves = new ArrayList<>();
-		/* Here we're looping through each one of the opponents moves and see if the final coordinate 
-		 * of that move is an attacking move. 	 */
-		for(final Move move : moves) {
-			if(piecePosition == move.getDestinationCoordinate()) {
-				attackMoves.add(move);
+	/* The allowed move from one tile to another, or the null move if there isn't one. The allowed moves are put in
+	 * buckets by the tile they start from the first time one is looked up, so each lookup after that only looks
+	 * through the few moves of a single piece. Only queen promotions are made, so no two moves share both tiles */
+	public Move findAllowedMove(final int currentCoordinate, final int finalCoordinate) {
+		if(!hasAllowedMove(currentCoordinate, finalCoordinate)) {
+			return Move.NULL_MOVE;
+		}
+		Move[][] movesBySource = this.allowedMovesBySource;
+		if(movesBySource == null) {
+			movesBySource = bucketBySource(getAllowedMoves());
+			this.allowedMovesBySource = movesBySource;
+		}
+		for(final Move move : movesBySource[currentCoordinate]) {
+			if(move.getDestinationCoordinate() == finalCoordinate) {
+				return move;
 			}
 		}
-		return Collections.unmodifiableList(attackMoves);
+		return Move.NULL_MOVE;
 	}
 	
-	protected boolean hasEscapeMoves() {
-		/* To calculate if the king can escape, we go through each of the players legal moves and check if those
-		 * moves result in the kings safety. If not, then the king must be in checkmate.       */
-		for(final Move move : this.allowedMoves) {
-			final BoardTransform transformation = makeMove(move);
-			if(transformation.getMoveStatus().isDone()) {
-				return true;
-			}
+	private static Move[][] bucketBySource(final Collection<Move> moves) {
+		final int[] bucketSizes = new int[BoardUtils.NUM_TILES];
+		for(final Move move : moves) {
+			bucketSizes[move.getCurrentCoordinate()]++;
 		}
-		return false;
+		final Move[][] movesBySource = new Move[BoardUtils.NUM_TILES][];
+		for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+			movesBySource[tile] = bucketSizes[tile] == 0 ? NO_MOVES : new Move[bucketSizes[tile]];
+			bucketSizes[tile] = 0;
+		}
+		for(final Move move : moves) {
+			final int tile = move.getCurrentCoordinate();
+			movesBySource[tile][bucketSizes[tile]++] = move;
+		}
+		return movesBySource;
+	}
+	
+	/* Is the tile attacked by any of the opponent's pieces? Used for the tiles the king passes over and lands on 
+	 * when castling */
+	protected boolean isTileAttackedByOpponent(final int tileCoordinate) {
+		return this.board.isTileAttacked(tileCoordinate, getColour().getOpponent());
+	}
+	
+	protected boolean hasEscapeMoves() {
+		/* The allowed moves only include moves which leave the king safe, so the king can escape exactly when 
+		 * there is an allowed move. If not, then the king must be in checkmate. */
+		return !getAllowedMoves().isEmpty();
 	}
 	
 	// Use this method to check for a king, without a king we have no chess game!
@@ -75,21 +139,52 @@ public abstract class Player {
 	}
 	
 	
+	/* A move is only allowed if it was made for this board, as it's the move's own board that it's made on, and it
+	 * equals the allowed move between the same tiles. Most moves that aren't allowed are turned away by the set of 
+	 * destination tiles in findAllowedMove, without the allowed moves being looked through at all */
 	public boolean isMoveAllowed(final Move move) {
-		return this.allowedMoves.contains(move);
+		return move.getBoard() == this.board && 
+				move.equals(findAllowedMove(move.getCurrentCoordinate(), move.getDestinationCoordinate()));
+	}
+	
+	// The allowed moves are recorded as a set of destination tiles for each source tile as they are worked out
+	private boolean hasAllowedMove(final int currentCoordinate, final int finalCoordinate) {
+		if(!BoardUtils.isValidTileCoordinate(currentCoordinate) || !BoardUtils.isValidTileCoordinate(finalCoordinate)) {
+			return false;
+		}
+		getAllowedMoves();
+		return (this.allowedDestinations[currentCoordinate] & 1L << finalCoordinate) != 0;
 	}
 	
 	// Methods to check on the state of the game
 	public boolean isInCheck() {
-		return this.isInCheck;
+		Boolean inCheck = this.isInCheck;
+		if(inCheck == null) {
+			/* The current player is in check if any of the opponent's pieces attack the king's tile. We look outwards
+			 * from the king's tile rather than through all of the opponent's moves */
+			inCheck = isTileAttackedByOpponent(this.playersKing.getPiecePosition());
+			this.isInCheck = inCheck;
+		}
+		return inCheck;
+	}
+	
+	/* Check, checkmate or stalemate for this player on this board. The checkmate and stalemate tests need the 
+	 * allowed moves, so the status is worked out once from them and then kept, however often it's asked for */
+	public GameStatus getGameStatus() {
+		GameStatus status = this.gameStatus;
+		if(status == null) {
+			status = GameStatus.of(isInCheck(), hasEscapeMoves());
+			this.gameStatus = status;
+		}
+		return status;
 	}
 	
 	public boolean isInCheckMate() {
-		return this.isInCheck && !hasEscapeMoves();
+		return getGameStatus() == GameStatus.CHECKMATE;
 	}
 	
 	public boolean isInStalemate() {
-		return !this.isInCheck && !hasEscapeMoves();
+		return getGameStatus() == GameStatus.STALEMATE;
 	}
 	
 	public boolean isCastled() {
@@ -98,20 +193,12 @@ public abstract class Player {
 	
 	// When we make a move, we return a BoardTransform - This is an important method!
 	public BoardTransform makeMove(final Move move) {
-		// If the move is illegal, we don't transform the board
+		/* If the move is illegal, we don't transform the board. Moves which would leave the king in check are never 
+		 * among the allowed moves, so there's no need to build the new board to look for attacks on the king */
 		if(!isMoveAllowed(move)) {
 			return new BoardTransform(this.board, move, MoveStatus.ILLEGAL_MOVE);
 		}
 		final Board transformBoard = move.execute();  // make the move - return transformed board
-		// we now ask if there are any attacks on the players king as a result of the move - this isn't allowed
-		final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(
-				transformBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(), 
-				transformBoard.currentPlayer().getAllowedMoves());
-		
-		if(!kingAttacks.isEmpty()) {
-			return new BoardTransform(this.board, move, MoveStatus.PLAYER_IN_CHECK);
-		}
-		
 		return new BoardTransform(transformBoard, move, MoveStatus.DONE);
 	}
 	
@@ -119,6 +206,6 @@ public abstract class Player {
 	public abstract Collection<ChessPiece> getActivePiece();
 	public abstract PieceColour getColour();
 	public abstract Player getOpponent();
-	protected abstract Collection<Move> calculateCastles(Collection<Move> playerAllowed, Collection<Move> opponentAllowed);
+	protected abstract Collection<Move> calculateCastles();
 	
 }
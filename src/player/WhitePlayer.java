@@ -5,8 +5,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import board_construction.AttackTables;
 import board_construction.Board;
-import board_construction.ChessTile;
+import board_construction.CastlingRights;
 import chess_pieces.ChessPiece;
 import chess_pieces.Move;
 import chess_pieces.PieceColour;
@@ -15,8 +16,8 @@ import chess_pieces.Rook;
 
 public class WhitePlayer extends Player {
 	
-	public WhitePlayer(Board board, Collection<Move> whiteAllowedMoves, Collection<Move> blackAllowedMoves) {
-		super(board, whiteAllowedMoves, blackAllowedMoves);
+	public WhitePlayer(final Board board) {
+		super(board);
 	}
 	
 	@Override public Collection<ChessPiece> getActivePiece() {
@@ -35,41 +36,27 @@ public class WhitePlayer extends Player {
 		return PieceColour.WHITE.toString();
 	}
 
+	/* The castling rights say whether the king and the rook have both stayed where they started, so all that's left
+	 * to check is that the tiles between them are empty, and that the king isn't in check and doesn't pass over or
+	 * land on an attacked tile */
 	@Override
-	protected Collection<Move> calculateCastles(Collection<Move> playersAllowed, Collection<Move> opponentsAllowed) {
-		final List<Move> castles = new ArrayList<>();
-		
-		// make required checks involved in castling  
-		if(this.playersKing.isFirstMove() && !this.isInCheck()) {
-			// first, white king side castle - checking rook positions 
-			if(!this.board.getTile(61).isTileOccupied() && !this.board.getTile(62).isTileOccupied()) {
-				final ChessTile rookTile = this.board.getTile(63);
-				// make sure rook has not moved
-				if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-					// check for attacks on tiles which disallow castling 
-					if(Player.calculateAttacksOnTile(61, opponentsAllowed).isEmpty() &&
-							Player.calculateAttacksOnTile(62, opponentsAllowed).isEmpty() && 
-							rookTile.getPiece().getPieceType().isRook()) {
-						
-						castles.add(new Move.KingSideCastleMove(this.board, this.playersKing, 62, 
-								(Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 61));
-					}
-				}
-			}
-			// white queen side castle
-			if(!this.board.getTile(59).isTileOccupied() && !this.board.getTile(58).isTileOccupied() &&
-					!this.board.getTile(57).isTileOccupied()) {
-				final ChessTile rookTile = this.board.getTile(56);
-				if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()) {
-					if(Player.calculateAttacksOnTile(58, opponentsAllowed).isEmpty() && 
-							Player.calculateAttacksOnTile(59, opponentsAllowed).isEmpty() && 
-							rookTile.getPiece().getPieceType().isRook()) {
-					
-					castles.add(new Move.QueenSideCastleMove(this.board, this.playersKing, 58, 
-							(Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 59));
-					}
-				}
-			}
+	protected Collection<Move> calculateCastles() {
+		final int castlingRights = this.board.getCastlingRights();
+		if((castlingRights & (CastlingRights.WHITE_KING_SIDE | CastlingRights.WHITE_QUEEN_SIDE)) == 0 || 
+				this.isInCheck()) {
+			return Collections.emptyList();
+		}
+		final List<Move> castles = new ArrayList<>(2);
+		final long occupancy = this.board.getAllOccupancy();
+		if((castlingRights & CastlingRights.WHITE_KING_SIDE) != 0 && (occupancy & AttackTables.between(60, 63)) == 0 &&
+				!isTileAttackedByOpponent(61) && !isTileAttackedByOpponent(62)) {
+			castles.add(new Move.KingSideCastleMove(this.board, this.playersKing, 62, 
+					(Rook) this.board.getPiece(63)));
+		}
+		if((castlingRights & CastlingRights.WHITE_QUEEN_SIDE) != 0 && (occupancy & AttackTables.between(60, 56)) == 0 &&
+				!isTileAttackedByOpponent(59) && !isTileAttackedByOpponent(58)) {
+			castles.add(new Move.QueenSideCastleMove(this.board, this.playersKing, 58, 
+					(Rook) this.board.getPiece(56)));
 		}
 		return Collections.unmodifiableList(castles);
 	}
@@ -2,9 +2,24 @@ package run_tests;
 
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
+import ai.AlphaBeta;
+import ai.IterativeDeepening;
+import ai.MiniMax;
+import ai.MoveOrdering;
+import ai.MovePicker;
+import ai.TranspositionTable;
 import board_construction.Board;
+import board_construction.CastlingRights;
+import board_construction.FenParser;
+import board_construction.SearchBoard;
+import chess_pieces.Move;
+import chess_pieces.Move.MoveFactory;
+import chess_pieces.PackedMove;
 
 
 /* UNIT TESTS */
@@ -31,4 +46,267 @@ public class BoardTest {
         assertTrue(board.whitePlayer().toString().equals("White"));
         assertTrue(board.blackPlayer().toString().equals("Black"));
 	}
+	
+	@Test
+	public void transposedBoardsAreEqual() {
+		final Board board = Board.createBoard();
+		// The knights go out and come back again, giving the starting position with white to move
+		Board transposed = board;
+		final int[][] knightMoves = {{62, 45}, {6, 21}, {45, 62}, {21, 6}};
+		for(final int[] knightMove : knightMoves) {
+			transposed = MoveFactory.createMove(transposed, knightMove[0], knightMove[1]).execute();
+		}
+		assertEquals(board.getZobristKey(), transposed.getZobristKey());
+		assertEquals(board, transposed);
+		assertNotEquals(board.getZobristKey(), 
+				MoveFactory.createMove(board, 62, 45).execute().getZobristKey());
+	}
+	
+	@Test
+	public void moveLookup() {
+		final Board board = Board.createBoard();
+		assertTrue(MoveFactory.createMove(board, 52, 36).getMovedPiece().getPieceColour().isWhite());
+		// Black's moves can't be made while it's white's turn, and a tile with no piece on it has no moves
+		assertEquals(Move.NULL_MOVE, MoveFactory.createMove(board, 12, 28));
+		assertEquals(Move.NULL_MOVE, MoveFactory.createMove(board, 36, 28));
+		assertEquals(Move.NULL_MOVE, MoveFactory.createMove(board, 52, 20));
+		assertTrue(board.currentPlayer().isMoveAllowed(MoveFactory.createMove(board, 52, 36)));
+		assertFalse(board.currentPlayer().isMoveAllowed(Move.NULL_MOVE));
+		// The same move found on an equal board is equal, and hashes the same
+		final Board otherBoard = Board.createBoard();
+		assertEquals(MoveFactory.createMove(board, 62, 45), MoveFactory.createMove(otherBoard, 62, 45));
+		assertEquals(MoveFactory.createMove(board, 62, 45).hashCode(), 
+				MoveFactory.createMove(otherBoard, 62, 45).hashCode());
+		// but a move made for the other board isn't allowed on this one, as it would be made on the other board
+		assertFalse(board.currentPlayer().isMoveAllowed(MoveFactory.createMove(otherBoard, 62, 45)));
+	}
+	
+	@Test
+	public void gameState() {
+		final Board board = Board.createBoard();
+		assertEquals(CastlingRights.ALL, board.getCastlingRights());
+		final Board afterPawnJump = MoveFactory.createMove(board, 52, 36).execute();      // e2-e4
+		assertEquals(44, afterPawnJump.getEnPassantTile());
+		assertEquals(0, afterPawnJump.getHalfmoveClock());
+		assertEquals(1, afterPawnJump.getFullmoveNumber());
+		final Board afterKnightMove = MoveFactory.createMove(afterPawnJump, 6, 21).execute();  // Ng8-f6
+		assertEquals(Board.NO_EN_PASSANT_TILE, afterKnightMove.getEnPassantTile());
+		assertEquals(1, afterKnightMove.getHalfmoveClock());
+		assertEquals(2, afterKnightMove.getFullmoveNumber());
+		
+		final Board castles = FenParser.createBoard("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 7 31");
+		assertEquals(CastlingRights.WHITE_KING_SIDE | CastlingRights.BLACK_QUEEN_SIDE, castles.getCastlingRights());
+		assertEquals(7, castles.getHalfmoveClock());
+		assertEquals(31, castles.getFullmoveNumber());
+		final Move queenSideCastle = MoveFactory.createMove(castles, 4, 2);
+		assertTrue(queenSideCastle.isCastlingMove());
+		assertEquals("O-O-O", queenSideCastle.toString());
+		assertEquals(Move.NULL_MOVE, MoveFactory.createMove(castles, 4, 6));
+		assertEquals(CastlingRights.WHITE_KING_SIDE, queenSideCastle.execute().getCastlingRights());
+	}
+	
+	@Test
+	public void badFensAreRejected() {
+		final String[] fens = {
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",              // only 7 rows
+				"rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",      // a row one short
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq - 0 1",    // a row one too long
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",     // no such side
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e9 0 1",    // no such tile
+				"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e3 0 1",  // the wrong side jumped
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq e3 0 1",    // no pawn in front of the tile
+				"P7/8/8/4k3/8/8/8/4K3 w - - 0 1",                               // a pawn on the last rank
+				"8/8/8/4k3/8/8/8/4K2p b - - 0 1",                               // a pawn on the first rank
+				"8/8/8/4k3/8/8/8/8 w - - 0 1",                                  // no white king
+				"8/8/8/4k3/8/8/8/3KK3 w - - 0 1"};                              // two white kings
+		for(final String fen : fens) {
+			try {
+				FenParser.createBoard(fen);
+				fail("Should have been rejected: " + fen);
+			} catch(final IllegalArgumentException e) {
+				// expected
+			}
+		}
+		assertEquals(44, FenParser.createBoard("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")
+				.getEnPassantTile());
+	}
+	
+	@Test
+	public void perftCounts() {
+		/* The published counts for the starting position and for "Kiwipete", which has every kind of move in it. Only
+		 * queen promotions are made, so Kiwipete is only counted to depth 3, before any promotions come up */
+		final Board board = Board.createBoard();
+		final Board kiwipete = 
+				FenParser.createBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+		final Perft perft = new Perft(false, false);
+		assertEquals(20, perft.count(board, 1));
+		assertEquals(400, perft.count(board, 2));
+		assertEquals(8902, perft.count(board, 3));
+		assertEquals(197281, perft.count(board, 4));
+		assertEquals(97862, perft.count(kiwipete, 3));
+		// The search's board must count the same, with or without the hash table
+		assertEquals(197281, new Perft(true, false).count(board, 4));
+		assertEquals(97862, new Perft(true, true).count(kiwipete, 3));
+	}
+	
+	@Test
+	public void movePickerGivesEveryMoveOnce() {
+		final SearchBoard board = new SearchBoard(
+				FenParser.createBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+		final int[] moves = board.getMoveList();
+		final int numMoves = board.generateMoves(moves);
+		final int hashMove = board.findMove(60, 62);      // castling
+		final int killer = board.findMove(48, 40);        // a2-a3
+		final MovePicker picker = new MovePicker();
+		picker.init(board, hashMove, killer, PackedMove.NO_MOVE);
+		final Set<Integer> picked = new HashSet<>();
+		assertEquals(hashMove, picker.nextMove());
+		picked.add(hashMove);
+		/* The captures come next. The bishop on a6 and knight on f6 are worth the most, and the bishop can be taken by a
+		 * bishop rather than the queen, so that's the first capture */
+		final int firstCapture = picker.nextMove();
+		assertEquals(board.findMove(52, 16), firstCapture);
+		picked.add(firstCapture);
+		for(int move = picker.nextMove(); move != PackedMove.NO_MOVE; move = picker.nextMove()) {
+			assertTrue(picked.add(move));
+		}
+		assertEquals(numMoves, picked.size());
+		for(int i = 0; i < numMoves; i++) {
+			assertTrue(picked.contains(moves[i]));
+		}
+	}
+	
+	@Test
+	public void alphaBetaMatchesMiniMax() {
+		// Pruning mustn't change the value of a position, only how much of the tree is looked at to find it
+		final String[] positions = {FenParser.INITIAL_POSITION, 
+				"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 1"};
+		final int depth = 3;
+		for(final String position : positions) {
+			final Board board = FenParser.createBoard(position);
+			final MiniMax miniMax = new MiniMax(depth);
+			final AlphaBeta alphaBeta = new AlphaBeta(depth, new TranspositionTable(1), false);
+			if(board.currentPlayer().getColour().isWhite()) {
+				assertEquals(miniMax.max(new SearchBoard(board), depth), 
+						alphaBeta.max(new SearchBoard(board), depth, Integer.MIN_VALUE, Integer.MAX_VALUE));
+			} else {
+				assertEquals(miniMax.min(new SearchBoard(board), depth), 
+						alphaBeta.min(new SearchBoard(board), depth, Integer.MIN_VALUE, Integer.MAX_VALUE));
+			}
+			assertTrue(alphaBeta.getBoardsEvaluated() < miniMax.getBoardsEvaluated());
+		}
+	}
+
+	@Test
+	public void iterativeDeepeningKeepsToTimeLimit() {
+		final Board board = FenParser.createBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+		final int maxDepth = 64;
+		final IterativeDeepening iterativeDeepening = new IterativeDeepening(300, maxDepth);
+		final Move move = iterativeDeepening.execute(board);
+		assertTrue(board.currentPlayer().isMoveAllowed(move));
+		/* Depth 64 can't be reached in the time, so stopping short of it shows the time limit ended the search. The
+		 * time taken isn't checked, as on a busy machine it could run over through no fault of the search */
+		assertTrue(iterativeDeepening.getDepthReached() >= 1);
+		assertTrue(iterativeDeepening.getDepthReached() < maxDepth);
+	}
+
+	@Test
+	public void iterativeDeepeningStaysWithinTheBoard() {
+		/* With so little to search the depths go up quickly, and given the time this gets as deep as the board allows
+		 * in a second or two, well before it runs out */
+		final Board board = FenParser.createBoard("8/8/8/4k3/8/8/8/4K3 w - - 0 1");
+		final IterativeDeepening iterativeDeepening = new IterativeDeepening(60000, AlphaBeta.MAX_DEPTH);
+		assertTrue(board.currentPlayer().isMoveAllowed(iterativeDeepening.execute(board)));
+		try {
+			new IterativeDeepening(60000, AlphaBeta.MAX_DEPTH + 1);
+			fail("A max depth the board has no room for was accepted");
+		} catch(final IllegalArgumentException expected) {
+			// the depth is rejected up front, rather than overrunning the board part way through a search
+		}
+	}
+
+	@Test
+	public void transpositionTableKeepsDeepestEntry() {
+		final TranspositionTable table = new TranspositionTable(1);
+		final int move = PackedMove.createMove(52, 36, PackedMove.PAWN_JUMP);
+		// the two keys only differ in their high bits, so land in the same bucket
+		final long key = 0x123456789L;
+		final long otherKey = key ^ (1L << 60);
+		table.store(key, -250, move, 5, TranspositionTable.LOWER_BOUND);
+		assertEquals(TranspositionTable.MISSING, table.probe(otherKey));
+
+		final long entry = table.probe(key);
+		assertEquals(-250, TranspositionTable.getScore(entry));
+		assertEquals(move, TranspositionTable.getBestMove(entry));
+		assertEquals(5, TranspositionTable.getDepth(entry));
+		assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+		assertTrue(TranspositionTable.isCutoff(entry, 4, -1000, -300));
+		assertFalse(TranspositionTable.isCutoff(entry, 4, -1000, 0));
+		assertFalse(TranspositionTable.isCutoff(entry, 6, -1000, -300));
+
+		// a shallower search of another position goes in the second entry, leaving the deeper one where it is
+		table.store(otherKey, 40, PackedMove.NO_MOVE, 2, TranspositionTable.EXACT);
+		assertEquals(5, TranspositionTable.getDepth(table.probe(key)));
+		assertEquals(40, TranspositionTable.getScore(table.probe(otherKey)));
+		// but once a new search starts the deep entry is old, and can be replaced
+		table.newSearch();
+		table.store(otherKey ^ 1L << 59, 0, PackedMove.NO_MOVE, 1, TranspositionTable.EXACT);
+		assertEquals(TranspositionTable.MISSING, table.probe(key));
+	}
+
+	@Test
+	public void transpositionTableMovesMatesWithTheDepth() {
+		// The evaluator scores a mate 500000 for each ply of depth left when it's reached, plus the rest of the position
+		final int matePerDepth = 500000;
+		final TranspositionTable table = new TranspositionTable(1);
+		// white mates two plies below a position searched with 5 left, so with 3 left
+		table.store(1L, 3 * matePerDepth + 120, PackedMove.NO_MOVE, 5, TranspositionTable.EXACT);
+		final long entry = table.probe(1L);
+		assertEquals(3 * matePerDepth + 120, TranspositionTable.getScore(entry, 5));
+		// reached again with less depth left, the mate is just as far away, so has less depth left when it's reached
+		assertEquals(matePerDepth + 120, TranspositionTable.getScore(entry, 3));
+		// and out of reach of a search with 2 left it counts as a mate found at depth 0
+		assertEquals(5000 + 120, TranspositionTable.getScore(entry, 2));
+
+		table.store(2L, -4 * matePerDepth - 75, PackedMove.NO_MOVE, 6, TranspositionTable.UPPER_BOUND);
+		assertEquals(-2 * matePerDepth - 75, TranspositionTable.getScore(table.probe(2L), 4));
+		// scores which aren't mates are the same at any depth
+		table.store(3L, -250, PackedMove.NO_MOVE, 6, TranspositionTable.EXACT);
+		assertEquals(-250, TranspositionTable.getScore(table.probe(3L), 1));
+	}
+
+	@Test
+	public void moveOrderingRemembersCutoffs() {
+		final SearchBoard board = new SearchBoard(Board.createBoard());
+		final MoveOrdering moveOrdering = new MoveOrdering(4);
+		final int knightMove = board.findMove(62, 45);
+		final int pawnMove = board.findMove(51, 35);
+		moveOrdering.recordCutoff(board, knightMove, 2, 3);
+		moveOrdering.recordCutoff(board, pawnMove, 2, 1);
+		// the latest cutoff is the first killer, but the deeper one has the higher history score
+		assertEquals(pawnMove, moveOrdering.getFirstKiller(2));
+		assertEquals(knightMove, moveOrdering.getSecondKiller(2));
+		assertEquals(PackedMove.NO_MOVE, moveOrdering.getFirstKiller(1));
+
+		final MovePicker picker = new MovePicker(moveOrdering);
+		picker.init(board, PackedMove.NO_MOVE, PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+		assertEquals(knightMove, picker.nextMove());
+		assertEquals(pawnMove, picker.nextMove());
+
+		moveOrdering.newSearch();
+		assertEquals(PackedMove.NO_MOVE, moveOrdering.getFirstKiller(2));
+		assertTrue(moveOrdering.getHistoryScore(board, knightMove) > moveOrdering.getHistoryScore(board, pawnMove));
+	}
+
+	@Test
+	public void quiescenceSeesRecapture() {
+		// taking the pawn on d5 with the queen loses her to exd5, one ply past the end of a depth 1 search
+		final Board board = FenParser.createBoard("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+		final Move pawnGrab = MoveFactory.createMove(board, 59, 27);
+		final TranspositionTable table = new TranspositionTable(1);
+		assertEquals(pawnGrab, new AlphaBeta(1, table, false).execute(board));
+		table.clear();
+		assertNotEquals(pawnGrab, new AlphaBeta(1, table, true).execute(board));
+	}
 }
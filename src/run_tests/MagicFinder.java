@@ -0,0 +1,135 @@
+package run_tests;
+
+import board_construction.BitBoards;
+import board_construction.BoardUtils;
+
+/* Finds the magic numbers AttackTables uses for the rook and bishop attacks, and prints them ready to paste over
+ * its ROOK_MAGICS and BISHOP_MAGICS. A magic number for a tile is one which, multiplied by any arrangement of the
+ * tiles that could block a slider there and shifted, gives an index that no arrangement with different attacks
+ * shares. They're found by trial with sparse random numbers, from a fixed seed so the same ones are found every time.
+ *
+ * The masks and attacks are worked out here by walking the rays rather than taken from AttackTables, so this still
+ * runs if its magics have stopped working and need finding again.
+ *
+ * Usage: MagicFinder                                                                                                 */
+public class MagicFinder {
+
+	private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+	private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+	private long randomState = 0x2545F4914F6CDD1DL;
+
+	/* Find a magic number for the tile by trial. Each candidate is tried against every arrangement of blockers until
+	 * two arrangements with different attacks land on the same entry */
+	private long findMagic(final int tile, final int[][] directions) {
+		final long mask = relevantOccupancy(tile, directions);
+		final int bits = BitBoards.countTiles(mask);
+		final int size = 1 << bits;
+
+		// Enumerate every subset of the mask (the "carry-rippler" trick) along with its attack set
+		final long[] occupancies = new long[size];
+		final long[] attacks = new long[size];
+		long subset = 0L;
+		for(int i = 0; i < size; i++) {
+			occupancies[i] = subset;
+			attacks[i] = slidingAttacks(tile, subset, directions);
+			subset = (subset - mask) & mask;
+		}
+
+		final long[] table = new long[size];
+		final int[] epoch = new int[size];
+		for(int attempt = 1; ; attempt++) {
+			final long magic = nextRandom() & nextRandom() & nextRandom();
+			// Magics which don't spread the mask into the top byte are very unlikely to work, so skip them quickly
+			if(BitBoards.countTiles((mask * magic) & 0xFF00000000000000L) < 6) {
+				continue;
+			}
+			boolean failed = false;
+			for(int i = 0; i < size && !failed; i++) {
+				final int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+				if(epoch[index] != attempt) {
+					epoch[index] = attempt;
+					table[index] = attacks[i];
+				} else if(table[index] != attacks[i]) {
+					failed = true;
+				}
+			}
+			if(!failed) {
+				return magic;
+			}
+		}
+	}
+
+	// xorshift random number generator, seeded above so the magics found are always the same
+	private long nextRandom() {
+		this.randomState ^= this.randomState >>> 12;
+		this.randomState ^= this.randomState << 25;
+		this.randomState ^= this.randomState >>> 27;
+		return this.randomState * 2685821657736338717L;
+	}
+
+	/* The tiles along each ray which could block the slider, leaving out the last tile on each ray, the same mask
+	 * AttackTables keeps for the tile */
+	private static long relevantOccupancy(final int tile, final int[][] directions) {
+		long mask = 0L;
+		for(final int[] direction : directions) {
+			int row = tile / BoardUtils.TILES_IN_ROW + direction[0];
+			int column = tile % BoardUtils.TILES_IN_ROW + direction[1];
+			while(isOnBoard(row + direction[0], column + direction[1])) {
+				mask |= BitBoards.tileMask(row * BoardUtils.TILES_IN_ROW + column);
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	// Walks each ray from the tile, stopping at (and including) the first blocker
+	private static long slidingAttacks(final int tile, final long occupancy, final int[][] directions) {
+		long attacks = 0L;
+		for(final int[] direction : directions) {
+			int row = tile / BoardUtils.TILES_IN_ROW + direction[0];
+			int column = tile % BoardUtils.TILES_IN_ROW + direction[1];
+			while(isOnBoard(row, column)) {
+				final long tileMask = BitBoards.tileMask(row * BoardUtils.TILES_IN_ROW + column);
+				attacks |= tileMask;
+				if((occupancy & tileMask) != 0) {
+					break;
+				}
+				row += direction[0];
+				column += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	private static boolean isOnBoard(final int row, final int column) {
+		return row >= 0 && row < BoardUtils.TILES_IN_COL && column >= 0 && column < BoardUtils.TILES_IN_ROW;
+	}
+
+	private static void printMagics(final String name, final long[] magics) {
+		System.out.println("private static final long[] " + name + " = {");
+		for(int tile = 0; tile < magics.length; tile++) {
+			System.out.print((tile % 4 == 0 ? "\t" : " ") + String.format("0x%016XL", magics[tile]) +
+					(tile < magics.length - 1 ? "," : ""));
+			if(tile % 4 == 3) {
+				System.out.println();
+			}
+		}
+		System.out.println("};");
+	}
+
+
+	public static void main(final String[] args) {
+		final MagicFinder magicFinder = new MagicFinder();
+		// Each tile's rook magic then its bishop magic, the order the numbers in AttackTables were found in
+		final long[] rookMagics = new long[BoardUtils.NUM_TILES];
+		final long[] bishopMagics = new long[BoardUtils.NUM_TILES];
+		for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+			rookMagics[tile] = magicFinder.findMagic(tile, ROOK_DIRECTIONS);
+			bishopMagics[tile] = magicFinder.findMagic(tile, BISHOP_DIRECTIONS);
+		}
+		printMagics("ROOK_MAGICS", rookMagics);
+		printMagics("BISHOP_MAGICS", bishopMagics);
+	}
+}
@@ -0,0 +1,221 @@
+package run_tests;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import board_construction.Board;
+import board_construction.FenParser;
+import board_construction.SearchBoard;
+import chess_pieces.Move;
+import chess_pieces.PackedMove;
+
+/* Perft ("performance test") walks the tree of legal moves to a given depth and counts the positions at the bottom.
+ * The counts for well known positions are published, so it's the standard check that move generation is right, and
+ * as it does little but generate and make moves it's also a good measure of how fast that is. Divide gives the count
+ * under each root move separately, which is how a wrong count is tracked down to the move responsible.
+ *
+ * The game only ever promotes to a queen (see Pawn.getPromotionPiece()), so the knight, bishop and rook promotions
+ * aren't generated, and any count reaching a promotion comes out below the published one - e.g. Kiwipete at depth 4
+ * gives 4,074,224 rather than 4,085,603. Counts which don't reach a promotion match the published ones, e.g. the
+ * starting position to depth 6 and Kiwipete to depth 3. Positions with a pawn about to promote, like position 4 and
+ * position 5 on the Chess Programming Wiki, fall short from depth 1 or 2 on.
+ *
+ * Each root move is counted in its own fork-join task, and an optional hash table of counts already worked out (keyed
+ * on the Zobrist key and depth) lets positions reached by more than one move order be counted just once. The count
+ * can be taken over the Board and its Move objects, as the game uses, or over the SearchBoard the ai uses.
+ *
+ * Usage: Perft depth [fen] [-search] [-hash]                                                                        */
+public class Perft {
+
+	private static final int HASH_ENTRIES = 1 << 22;
+
+	private final boolean onSearchBoard;
+	private final PerftHash hash;
+
+	public Perft(final boolean onSearchBoard, final boolean useHash) {
+		this.onSearchBoard = onSearchBoard;
+		this.hash = useHash ? new PerftHash(HASH_ENTRIES) : null;
+	}
+
+	public long count(final Board board, final int depth) {
+		if(depth == 0) {
+			return 1;
+		}
+		long nodes = 0;
+		for(final long moveNodes : divide(board, depth).values()) {
+			nodes += moveNodes;
+		}
+		return nodes;
+	}
+
+	// The count under each of the root moves, in the order the board gives the moves
+	public Map<Move, Long> divide(final Board board, final int depth) {
+		if(depth < 1) {
+			throw new IllegalArgumentException("Divide needs a depth of at least 1");
+		}
+		final List<Move> moves = new ArrayList<>(board.currentPlayer().getAllowedMoves());
+		final List<ForkJoinTask<Long>> tasks = new ArrayList<>(moves.size());
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		for(final Move move : moves) {
+			tasks.add(pool.submit(new RootMoveTask(move, depth - 1)));
+		}
+		final Map<Move, Long> counts = new LinkedHashMap<>();
+		for(int i = 0; i < moves.size(); i++) {
+			counts.put(moves.get(i), tasks.get(i).join());
+		}
+		return counts;
+	}
+
+	private long countBoard(final Board board, final int depth) {
+		if(depth == 0) {
+			return 1;
+		}
+		// At the last ply the positions don't need making, just counting
+		if(depth == 1) {
+			return board.currentPlayer().getAllowedMoves().size();
+		}
+		final long hashed = probe(board.getZobristKey(), depth);
+		if(hashed != PerftHash.MISSING) {
+			return hashed;
+		}
+		long nodes = 0;
+		for(final Move move : board.currentPlayer().getAllowedMoves()) {
+			nodes += countBoard(move.execute(), depth - 1);
+		}
+		store(board.getZobristKey(), depth, nodes);
+		return nodes;
+	}
+
+	private long countSearchBoard(final SearchBoard board, final int depth) {
+		if(depth == 0) {
+			return 1;
+		}
+		final int[] moves = board.getMoveList();
+		final int numMoves = board.generateMoves(moves);
+		if(depth == 1) {
+			return numMoves;
+		}
+		final long hashed = probe(board.getZobristKey(), depth);
+		if(hashed != PerftHash.MISSING) {
+			return hashed;
+		}
+		long nodes = 0;
+		for(int i = 0; i < numMoves; i++) {
+			board.makeMove(moves[i]);
+			nodes += countSearchBoard(board, depth - 1);
+			board.unmakeMove();
+		}
+		store(board.getZobristKey(), depth, nodes);
+		return nodes;
+	}
+
+	private long probe(final long zobristKey, final int depth) {
+		return this.hash == null ? PerftHash.MISSING : this.hash.probe(zobristKey, depth);
+	}
+
+	private void store(final long zobristKey, final int depth, final long nodes) {
+		if(this.hash != null) {
+			this.hash.store(zobristKey, depth, nodes);
+		}
+	}
+
+	// Counts everything under one root move, on a board of its own so the tasks never share anything but the hash
+	private class RootMoveTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Move move;
+		private final int depth;
+
+		RootMoveTask(final Move move, final int depth) {
+			this.move = move;
+			this.depth = depth;
+		}
+
+		@Override protected Long compute() {
+			final Board board = this.move.execute();
+			return onSearchBoard ? countSearchBoard(new SearchBoard(board), this.depth) :
+					countBoard(board, this.depth);
+		}
+	}
+
+	/* The counts already worked out, kept in a fixed size table shared by all the tasks without any locking. Each
+	 * entry is two longs, the count and the position's key xor'ed with the count. If two threads write the same entry
+	 * at once a reader could see one thread's count with the other's check, but then the check no longer gives back
+	 * the key, so the torn entry is simply treated as missing. */
+	private static final class PerftHash {
+
+		static final long MISSING = -1;
+
+		private final long[] checks;
+		private final long[] counts;
+		private final int mask;
+
+		PerftHash(final int entries) {
+			this.checks = new long[entries];
+			this.counts = new long[entries];
+			this.mask = entries - 1;
+		}
+
+		long probe(final long zobristKey, final int depth) {
+			final long key = entryKey(zobristKey, depth);
+			final int index = (int) key & this.mask;
+			final long count = this.counts[index];
+			return (this.checks[index] ^ count) == key && count != 0 ? count : MISSING;
+		}
+
+		void store(final long zobristKey, final int depth, final long count) {
+			final long key = entryKey(zobristKey, depth);
+			final int index = (int) key & this.mask;
+			this.counts[index] = count;
+			this.checks[index] = key ^ count;
+		}
+
+		// The same position has a different count at each depth, so the depth is mixed into the key
+		private static long entryKey(final long zobristKey, final int depth) {
+			return zobristKey ^ (depth * 0x9E3779B97F4A7C15L);
+		}
+	}
+
+
+	public static void main(final String[] args) {
+		if(args.length == 0) {
+			System.out.println("Usage: Perft depth [fen] [-search] [-hash]");
+			return;
+		}
+		final int depth = Integer.parseInt(args[0]);
+		String fen = FenParser.INITIAL_POSITION;
+		boolean onSearchBoard = false;
+		boolean useHash = false;
+		for(int i = 1; i < args.length; i++) {
+			if(args[i].equals("-search")) {
+				onSearchBoard = true;
+			} else if(args[i].equals("-hash")) {
+				useHash = true;
+			} else {
+				fen = args[i];
+			}
+		}
+
+		final Board board = FenParser.createBoard(fen);
+		final long startTime = System.nanoTime();
+		final Map<Move, Long> counts = new Perft(onSearchBoard, useHash).divide(board, depth);
+		final long elapsedTime = Math.max(System.nanoTime() - startTime, 1);
+
+		long nodes = 0;
+		for(final Map.Entry<Move, Long> count : counts.entrySet()) {
+			System.out.println(PackedMove.toString(count.getKey().toPackedMove()) + ": " + count.getValue());
+			nodes += count.getValue();
+		}
+		System.out.println();
+		System.out.println("Moves: " + counts.size());
+		System.out.println("Nodes: " + nodes);
+		System.out.println("Time: " + (elapsedTime / 1000000) + "ms");
+		System.out.println("Nodes per second: " + (nodes * 1000000000L / elapsedTime));
+	}
+}